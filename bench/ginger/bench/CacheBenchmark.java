@@ -0,0 +1,83 @@
+package ginger.bench;
+
+import ginger.DuckType;
+import ginger.ducktype.BoundedMethodCache;
+import ginger.ducktype.ClassValueMethodCache;
+import ginger.ducktype.IdentityMethodCache;
+import ginger.ducktype.MethodCache;
+import ginger.ducktype.NoMethodCache;
+import ginger.ducktype.SimpleMethodCache;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One single call, every way we have to make it: directly, with
+ * {@link Method#invoke(Object, Object...)} and with DuckType on each method
+ * cache engine.
+ * <p>
+ * The direct call is the floor, <em>NoMethodCache</em> is the hard way on
+ * every call. Everything else should be somewhere in between, as close to the
+ * floor as possible.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+
+    @Param({ "identity", "classValue", "simple", "bounded", "none" })
+    public String cache;
+
+    private Ducks.Quacker duck;
+    private Method quack;
+    private MethodCache methodCache;
+    private int times;
+
+    @Setup
+    public void setUp() throws Exception {
+        duck = new Ducks.Duck0();
+        quack = Ducks.Duck0.class.getMethod("quack", int.class);
+        methodCache = newCache(cache);
+        times = 42;
+    }
+
+    @Benchmark
+    public int direct() {
+        return duck.quack(times);
+    }
+
+    @Benchmark
+    public Object reflection() throws Exception {
+        return quack.invoke(duck, times);
+    }
+
+    @Benchmark
+    public Object duckType() {
+        return new DuckType(duck, methodCache).call("quack", times);
+    }
+
+    static MethodCache newCache(String name) {
+        if (name.equals("identity")) return new IdentityMethodCache();
+        if (name.equals("classValue")) return new ClassValueMethodCache();
+        if (name.equals("simple")) return new SimpleMethodCache();
+        if (name.equals("bounded")) return new BoundedMethodCache(1000);
+        if (name.equals("none")) return new NoMethodCache();
+        throw new IllegalArgumentException("Unknown cache: " + name);
+    }
+}
@@ -0,0 +1,67 @@
+package ginger.bench;
+
+import ginger.DuckType;
+import ginger.ducktype.MethodCache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lots of threads calling through the same method cache at once. The hit and
+ * miss counters and the synchronized caches are what we are looking at here.
+ * <p>
+ * Compare with the single threaded numbers of {@link CacheBenchmark}: a cache
+ * that scales keeps the same time per call.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ContentionBenchmark {
+
+    @Param({ "identity", "classValue", "simple", "bounded" })
+    public String cache;
+
+    private MethodCache methodCache;
+    private Ducks.Quacker[] flock;
+
+    @Setup
+    public void setUp() {
+        methodCache = CacheBenchmark.newCache(cache);
+        flock = Ducks.flock(4, Ducks.MAXIMUM_CLASSES);
+    }
+
+    @Benchmark
+    public Object sharedCache(ThreadIndex thread) {
+        return new DuckType(flock[thread.next()], methodCache).call("quack", 1);
+    }
+
+    /**
+     * Each thread goes through the flock on its own.
+     */
+    @State(Scope.Thread)
+    public static class ThreadIndex {
+        private int index;
+
+        public int next() {
+            index = (index + 1) % Ducks.MAXIMUM_CLASSES;
+            return index;
+        }
+    }
+}
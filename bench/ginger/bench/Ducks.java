@@ -0,0 +1,81 @@
+package ginger.bench;
+
+/**
+ * Receivers for the benchmarks: eight unrelated classes with the same method,
+ * so we can call it with 1 to 8 different classes at the same call site.
+ */
+public class Ducks {
+    public static final int MAXIMUM_CLASSES = 8;
+
+    /**
+     * The method called by the direct (not duck typed) benchmarks.
+     */
+    public interface Quacker {
+        int quack(int times);
+    }
+
+    public static class Duck0 implements Quacker {
+        public int quack(int times) {
+            return times;
+        }
+    }
+
+    public static class Duck1 implements Quacker {
+        public int quack(int times) {
+            return times + 1;
+        }
+    }
+
+    public static class Duck2 implements Quacker {
+        public int quack(int times) {
+            return times + 2;
+        }
+    }
+
+    public static class Duck3 implements Quacker {
+        public int quack(int times) {
+            return times + 3;
+        }
+    }
+
+    public static class Duck4 implements Quacker {
+        public int quack(int times) {
+            return times + 4;
+        }
+    }
+
+    public static class Duck5 implements Quacker {
+        public int quack(int times) {
+            return times + 5;
+        }
+    }
+
+    public static class Duck6 implements Quacker {
+        public int quack(int times) {
+            return times + 6;
+        }
+    }
+
+    public static class Duck7 implements Quacker {
+        public int quack(int times) {
+            return times + 7;
+        }
+    }
+
+    /**
+     * <em>size</em> ducks of <em>classes</em> different classes, in turns.
+     */
+    public static Quacker[] flock(int classes, int size) {
+        if (classes < 1 || classes > MAXIMUM_CLASSES) {
+            throw new IllegalArgumentException("From 1 to " + MAXIMUM_CLASSES + " classes: " + classes);
+        }
+
+        Quacker[] all = { new Duck0(), new Duck1(), new Duck2(), new Duck3(), new Duck4(), new Duck5(),
+                new Duck6(), new Duck7() };
+        Quacker[] result = new Quacker[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = all[i % classes];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package ginger.bench;
+
+import ginger.CallSite;
+import ginger.DuckType;
+import ginger.ducktype.IdentityMethodCache;
+import ginger.ducktype.MethodCache;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The same call on receivers of 1, 2, 4 or 8 classes: monomorphic,
+ * polymorphic and megamorphic call sites.
+ * <p>
+ * The direct interface call shows what the JIT does with each level.
+ * DuckType goes to the method cache every time, the call site should stay
+ * flat up to 4 classes and degrade to the cache after that.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolymorphismBenchmark {
+    private static final int FLOCK_SIZE = 1024;
+
+    @Param({ "1", "2", "4", "8" })
+    public int classes;
+
+    private Ducks.Quacker[] flock;
+    private MethodCache cache;
+    private CallSite quack;
+
+    @Setup
+    public void setUp() {
+        flock = Ducks.flock(classes, FLOCK_SIZE);
+        cache = new IdentityMethodCache();
+        quack = DuckType.callSite("quack", Integer.class);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FLOCK_SIZE)
+    public int direct() {
+        int result = 0;
+        for (Ducks.Quacker duck : flock) {
+            result += duck.quack(1);
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FLOCK_SIZE)
+    public int duckType() {
+        int result = 0;
+        for (Ducks.Quacker duck : flock) {
+            result += new DuckType(duck, cache).<Integer> call("quack", 1);
+        }
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FLOCK_SIZE)
+    public int callSite() {
+        int result = 0;
+        for (Ducks.Quacker duck : flock) {
+            result += quack.<Integer> call(duck, 1);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,67 @@
+package ginger.bench;
+
+import ginger.ducktype.MethodIndex;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The hard way: finding a method that's not in cache.
+ * <p>
+ * <em>getMethod</em> is what the JDK gives us for exact types,
+ * <em>scan</em> goes through every public method like DuckType used to, and
+ * <em>index</em> is what DuckType does now. ArrayList has lots of methods and
+ * overloads, so it's a fair worst case.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolutionBenchmark {
+
+    @Param({ "add", "indexOf", "missing" })
+    public String methodName;
+
+    private final Class<?> type = ArrayList.class;
+    private final Class<?>[] argumentTypes = { Integer.class };
+
+    @Benchmark
+    public Method getMethod() {
+        try {
+            return type.getMethod(methodName, Object.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Method scan() {
+        for (Method method : type.getMethods()) {
+            if (!method.getName().equals(methodName)) continue;
+
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            if (parameterTypes.length == 1 && parameterTypes[0].isAssignableFrom(argumentTypes[0])) return method;
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Method index() {
+        return MethodIndex.of(type).find(methodName, argumentTypes);
+    }
+}
@@ -0,0 +1,133 @@
+package ginger;
+
+import ginger.ducktype.Invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The same method called on lots of objects, for
+ * {@link DuckType#callAll(Iterable, CharSequence, Object...)}.
+ * <p>
+ * Objects usually come in long runs of the same class, so we remember the last
+ * class and its invoker. For the others, there is a map with an invoker for
+ * each class seen. Either way, each method is found only once.
+ * </p>
+ */
+class BulkCall {
+    /**
+     * Below that, splitting the work costs more than doing it.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+    private final String methodName;
+    private final Object[] arguments;
+    private final Class<?>[] argumentTypes;
+
+    public BulkCall(String methodName, Object[] arguments) {
+        this.methodName = methodName;
+        this.arguments = arguments;
+        this.argumentTypes = DuckType.classesFor(arguments);
+    }
+
+    public <T> Seq<T> callAll(Iterable<?> objects) {
+        Object[] receivers = toArray(objects);
+        Object[] results = new Object[receivers.length];
+        call(receivers, results, 0, receivers.length);
+        return toSeq(results);
+    }
+
+    public <T> Seq<T> callAllInParallel(Iterable<?> objects) {
+        Object[] receivers = toArray(objects);
+        Object[] results = new Object[receivers.length];
+        ForkJoinPool.commonPool().invoke(new Slice(receivers, results, 0, receivers.length));
+        return toSeq(results);
+    }
+
+    private void call(Object[] receivers, Object[] results, int from, int to) {
+        Map<Class<?>, Invoker> invokers = null;
+        Class<?> lastClass = null;
+        Invoker lastInvoker = null;
+
+        for (int i = from; i < to; i++) {
+            Object receiver = receivers[i];
+            if (receiver == null) continue;
+
+            Class<?> receiverClass = receiver.getClass();
+            if (receiverClass != lastClass) {
+                if (invokers == null) invokers = new IdentityHashMap<Class<?>, Invoker>();
+
+                lastInvoker = invokers.get(receiverClass);
+                if (lastInvoker == null) {
+                    lastInvoker = DuckType.invokerFor(receiverClass, methodName, argumentTypes);
+                    invokers.put(receiverClass, lastInvoker);
+                }
+                lastClass = receiverClass;
+            }
+
+            results[i] = invoke(lastInvoker, receiver);
+        }
+    }
+
+    private Object invoke(Invoker invoker, Object receiver) {
+        try {
+
+            return invoker.invoke(receiver, arguments);
+
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Object[] toArray(Iterable<?> objects) {
+        if (objects instanceof Collection) return ((Collection<?>) objects).toArray();
+
+        List<Object> result = new ArrayList<Object>();
+        for (Object object : objects) {
+            result.add(object);
+        }
+        return result.toArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Seq<T> toSeq(Object[] results) {
+        return new Seq<T>((List<T>) Arrays.asList(results));
+    }
+
+    /**
+     * A slice of the objects, split in half until it's small enough.
+     */
+    @SuppressWarnings("serial")
+    private class Slice extends RecursiveAction {
+        private final Object[] receivers;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+
+        public Slice(Object[] receivers, Object[] results, int from, int to) {
+            this.receivers = receivers;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                call(receivers, results, from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new Slice(receivers, results, from, middle), new Slice(receivers, results, middle, to));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ginger;
+
+import ginger.ducktype.Invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+/**
+ * One place in your code that calls the same method over and over, on objects
+ * of a few different classes.
+ * <p>
+ * Get one with {@link DuckType#callSite(CharSequence, Class...)} and keep it
+ * (in a static field, for example). It remembers the method found for the
+ * first {@value #MAXIMUM_ENTRIES} receiver classes it sees and checks them by
+ * identity before going to the method cache. That's the <em>inline
+ * cache</em> of dynamic languages: most call sites see one class (monomorphic)
+ * or a few (polymorphic), and those never look anything up again.
+ * </p>
+ * <p>
+ * A call site that sees more classes than that is <em>megamorphic</em>: it
+ * stops learning and every other class goes to the method cache, just like
+ * {@link DuckType#call(CharSequence, Object...)}.
+ * </p>
+ * <p>
+ * It's safe to share it between threads.
+ * </p>
+ */
+public class CallSite {
+    static final int MAXIMUM_ENTRIES = 4;
+
+    private final String methodName;
+    private final Class<?>[] argumentTypes;
+    // Immutable, so a race here only means looking a method up twice
+    private Entries entries = Entries.EMPTY;
+
+    CallSite(String methodName, Class<?>... argumentTypes) {
+        this.methodName = methodName;
+        // Whoever gave us the array can change it later
+        this.argumentTypes = argumentTypes.clone();
+    }
+
+    /**
+     * Calls the method on the target.
+     * 
+     * @param <T>
+     *            Type of return value (this <em>can</em> throws a
+     *            {@link ClassCastException}).
+     * @param arguments
+     *            The method arguments, of the types given when the call site
+     *            was created.
+     * @return The return value of the method or null if the method returns
+     *         void or the target is null.
+     * @throws DuckType.NoSuchMethodException
+     *             If the target doesn't have the method.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T call(Object target, Object... arguments) {
+
+        // Guard clause
+        if (target == null) return null;
+
+        try {
+
+            return (T) invokerFor(target.getClass()).invoke(target, arguments);
+
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Finds the invoker for objects of the class, in the inline cache if
+     * possible.
+     */
+    Invoker invokerFor(Class<?> targetClass) {
+        Entries current = entries;
+        Class<?>[] classes = current.classes;
+        for (int i = 0; i < classes.length; i++) {
+            if (classes[i] == targetClass) return current.invokers[i];
+        }
+
+        Invoker result = DuckType.invokerFor(targetClass, methodName, argumentTypes);
+        if (!current.megamorphic) entries = current.with(targetClass, result);
+        return result;
+    }
+
+    /**
+     * How many classes are in the inline cache.
+     */
+    public int size() {
+        return entries.classes.length;
+    }
+
+    /**
+     * True if it saw too many classes and stopped learning new ones.
+     */
+    public boolean isMegamorphic() {
+        return entries.megamorphic;
+    }
+
+    public String toString() {
+        return "CallSite(" + methodName + Arrays.toString(argumentTypes) + ")";
+    }
+
+    private static class Entries {
+        private static final Entries EMPTY = new Entries(new Class<?>[0], new Invoker[0], false);
+
+        private final Class<?>[] classes;
+        private final Invoker[] invokers;
+        private final boolean megamorphic;
+
+        public Entries(Class<?>[] classes, Invoker[] invokers, boolean megamorphic) {
+            this.classes = classes;
+            this.invokers = invokers;
+            this.megamorphic = megamorphic;
+        }
+
+        public Entries with(Class<?> newClass, Invoker newInvoker) {
+            // Full, keep the ones we have and don't learn anymore
+            if (classes.length == MAXIMUM_ENTRIES) return new Entries(classes, invokers, true);
+
+            Class<?>[] newClasses = Arrays.copyOf(classes, classes.length + 1);
+            Invoker[] newInvokers = Arrays.copyOf(invokers, invokers.length + 1);
+            newClasses[classes.length] = newClass;
+            newInvokers[invokers.length] = newInvoker;
+            return new Entries(newClasses, newInvokers, false);
+        }
+    }
+}
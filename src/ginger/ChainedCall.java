@@ -0,0 +1,72 @@
+package ginger;
+
+import java.util.Arrays;
+
+/**
+ * A chain of method calls compiled once and evaluated on any object, like
+ * <code>d(x).chain("a").chain("b").call("c")</code> without the DuckTypes in
+ * between.
+ * <p>
+ * Get one with {@link DuckType#path(CharSequence...)}. Each link is a
+ * {@link CallSite}, remembering the classes it saw and the methods found for
+ * them, so while the classes don't change there is no lookup at all, only a
+ * class check per link. It's safe to share it between threads.
+ * </p>
+ */
+public class ChainedCall {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final Link[] links;
+
+    ChainedCall(CharSequence... methodNames) {
+        if (methodNames.length == 0) throw new IllegalArgumentException("A chain needs at least one method");
+
+        this.links = new Link[methodNames.length];
+        for (int i = 0; i < methodNames.length; i++) {
+            links[i] = new Link(methodNames[i].toString());
+        }
+    }
+
+    /**
+     * Calls the whole chain, starting with the target.
+     * 
+     * @param <T>
+     *            Type of return value (this <em>can</em> throws a
+     *            {@link ClassCastException}).
+     * @return The return value of the last method, or null if the target or
+     *         any method in between returns null.
+     * @throws DuckType.NoSuchMethodException
+     *             If any object in the chain doesn't have its method.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T call(Object target) {
+        Object result = target;
+        for (Link link : links) {
+            if (result == null) return null;
+            result = link.call(result);
+        }
+        return (T) result;
+    }
+
+    public String toString() {
+        String[] names = new String[links.length];
+        for (int i = 0; i < links.length; i++) {
+            names[i] = links[i].methodName;
+        }
+        return "ChainedCall" + Arrays.toString(names);
+    }
+
+    private static class Link {
+        private final String methodName;
+        private final CallSite site;
+
+        public Link(String methodName) {
+            this.methodName = methodName;
+            this.site = new CallSite(methodName);
+        }
+
+        public Object call(Object target) {
+            return site.call(target, NO_ARGUMENTS);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package ginger;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.DoubleStream;
+
+/**
+ * A {@link Seq} of doubles, straight in a <code>double[]</code>: no boxing, no
+ * nodes, 8 bytes per element (plus some room to grow).
+ * <p>
+ * The elements sit in the middle of the array, with room on both sides, so
+ * {@link #append(double)} and {@link #prepend(double)} are both O(1) (amortized,
+ * when it has to grow). And they are always in one piece, so sorting and
+ * searching go straight to {@link Arrays}.
+ * </p>
+ * <p>
+ * It's not thread safe.
+ * </p>
+ */
+public class DoubleSeq {
+    private static final int MINIMUM_CAPACITY = 8;
+
+    private double[] values;
+    private int start;
+    private int end;
+
+    public static DoubleSeq doubles(double... values) {
+        return new DoubleSeq(values);
+    }
+
+    /**
+     * Each element of the objects converted to a double, with no boxing on the
+     * way (if the function doesn't box).
+     */
+    public static <T> DoubleSeq doubles(Iterable<T> objects, ToDoubleFunction<? super T> function) {
+        DoubleSeq result = new DoubleSeq();
+        for (T object : objects) {
+            result.append(function.applyAsDouble(object));
+        }
+        return result;
+    }
+
+    public DoubleSeq() {
+        this.values = new double[MINIMUM_CAPACITY];
+    }
+
+    /**
+     * A copy of the values.
+     */
+    public DoubleSeq(double... values) {
+        this.values = Arrays.copyOf(values, Math.max(values.length, MINIMUM_CAPACITY));
+        this.end = values.length;
+    }
+
+    public int size() {
+        return end - start;
+    }
+
+    public boolean isEmpty() {
+        return end == start;
+    }
+
+    public double get(int index) {
+        checkIndex(index);
+        return values[start + index];
+    }
+
+    /**
+     * @return The value that was there.
+     */
+    public double set(int index, double value) {
+        checkIndex(index);
+        double old = values[start + index];
+        values[start + index] = value;
+        return old;
+    }
+
+    public double getFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return values[start];
+    }
+
+    public double getLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return values[end - 1];
+    }
+
+    public DoubleSeq append(double value) {
+        if (end == values.length) grow(1);
+        values[end++] = value;
+        return this;
+    }
+
+    public DoubleSeq prepend(double value) {
+        if (start == 0) grow(1);
+        values[--start] = value;
+        return this;
+    }
+
+    public DoubleSeq appendAll(DoubleSeq other) {
+        int count = other.size();
+        if (end + count > values.length) grow(count);
+        System.arraycopy(other.values, other.start, values, end, count);
+        end += count;
+        return this;
+    }
+
+    public void clear() {
+        start = end = 0;
+    }
+
+    // Bulk operations
+
+    public double sum() {
+        double result = 0;
+        for (int i = start; i < end; i++) {
+            result += values[i];
+        }
+        return result;
+    }
+
+    /**
+     * Same rules as {@link Math#min(double, double)}, so NaN if there is a NaN.
+     *
+     * @throws NoSuchElementException
+     *             If there are no elements.
+     */
+    public double min() {
+        double result = getFirst();
+        for (int i = start + 1; i < end; i++) {
+            result = Math.min(result, values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Same rules as {@link Math#max(double, double)}, so NaN if there is a NaN.
+     *
+     * @throws NoSuchElementException
+     *             If there are no elements.
+     */
+    public double max() {
+        double result = getFirst();
+        for (int i = start + 1; i < end; i++) {
+            result = Math.max(result, values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Sorts in place, ascending.
+     */
+    public DoubleSeq sort() {
+        Arrays.sort(values, start, end);
+        return this;
+    }
+
+    /**
+     * Same as {@link Arrays#binarySearch(double[], double)}: the index of the value,
+     * or <code>(-(insertion point) - 1)</code> if it's not there. Only works
+     * if it's sorted.
+     */
+    public int binarySearch(double value) {
+        int result = Arrays.binarySearch(values, start, end, value);
+        return result >= 0 ? result - start : result + start;
+    }
+
+    public void forEach(DoubleConsumer consumer) {
+        for (int i = start; i < end; i++) {
+            consumer.accept(values[i]);
+        }
+    }
+
+    // Conversions
+
+    /**
+     * Each value converted to an object.
+     */
+    public <R> Seq<R> mapToObj(DoubleFunction<? extends R> function) {
+        Seq<R> result = new Seq<R>();
+        for (int i = start; i < end; i++) {
+            result.add(function.apply(values[i]));
+        }
+        return result;
+    }
+
+    /**
+     * The values as Doubles, the only place where they get boxed.
+     */
+    public Seq<Double> boxed() {
+        Seq<Double> result = new Seq<Double>();
+        for (int i = start; i < end; i++) {
+            result.add(values[i]);
+        }
+        return result;
+    }
+
+    public DoubleStream stream() {
+        return Arrays.stream(values, start, end);
+    }
+
+    public double[] toArray() {
+        return Arrays.copyOfRange(values, start, end);
+    }
+
+    public String join() {
+        return join(", ");
+    }
+
+    public String join(CharSequence separator) {
+        StringBuilder result = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            if (i > start) result.append(separator);
+            result.append(values[i]);
+        }
+        return result.toString();
+    }
+
+    public boolean equals(Object other) {
+        if (other == this) return true;
+        if (!(other instanceof DoubleSeq)) return false;
+        DoubleSeq otherSeq = (DoubleSeq) other;
+        return Arrays.equals(values, start, end, otherSeq.values, otherSeq.start, otherSeq.end);
+    }
+
+    public int hashCode() {
+        int result = 1;
+        for (int i = start; i < end; i++) {
+            result = 31 * result + Double.hashCode(values[i]);
+        }
+        return result;
+    }
+
+    public String toString() {
+        return "[" + join() + "]";
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    /**
+     * Room for <em>more</em> values, at least, moving the values to the middle
+     * so both sides can grow.
+     */
+    private void grow(int more) {
+        int size = size();
+        int capacity = Math.max(MINIMUM_CAPACITY, (size + more) * 2);
+        double[] grown = new double[capacity];
+        int newStart = (capacity - size) / 2;
+        System.arraycopy(values, start, grown, newStart, size);
+        values = grown;
+        start = newStart;
+        end = newStart + size;
+    }
+}
@@ -1,15 +1,42 @@
 package ginger;
 
+import ginger.ducktype.BytecodeEngine;
+import ginger.ducktype.DispatchListener;
+import ginger.ducktype.IdentityMethodCache;
+import ginger.ducktype.InvocationEngine;
+import ginger.ducktype.Invoker;
 import ginger.ducktype.MethodCache;
+import ginger.ducktype.MethodHandleEngine;
+import ginger.ducktype.MethodIndex;
+import ginger.ducktype.MissingMethods;
 import ginger.ducktype.NoMethodCache;
-import ginger.ducktype.SimpleMethodCache;
+import ginger.ducktype.Null;
+import ginger.ducktype.Property;
+import ginger.ducktype.PropertyIndex;
+import ginger.ducktype.ReflectionEngine;
+import ginger.ducktype.Signature;
+import ginger.ducktype.SignatureFile;
+import ginger.ducktype.VarargsInvoker;
 
-import java.io.PrintStream;
-import java.io.PrintWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Provides an simplified interface to dynamically execute methods.
@@ -57,7 +84,17 @@ import java.util.Map;
  * purpose is to speed up the lookup process, which can be pretty slow. It's
  * possible to turn the method caching off with {@link #turnMethodCacheOff()}
  * and re-enable it with {@link #turnMethodCacheOn()} (both static methods).
- * Also, you can use your own cache with {@link #useCache(MethodCache)}.
+ * Also, you can use your own cache with {@link #useCache(MethodCache)}, or
+ * give one to a single DuckType with {@link #DuckType(Object, MethodCache)}.
+ * </p>
+ * <p>
+ * Once found, methods are executed with {@link java.lang.invoke.MethodHandle}s,
+ * which are way faster than reflection in tight loops. If you want plain old
+ * reflection back, use {@link #turnMethodHandlesOff()} (and
+ * {@link #turnMethodHandlesOn()} to undo it). You can also provide your own
+ * engine with {@link #useInvocationEngine(InvocationEngine)}. For really hot
+ * loops, {@link #turnBytecodeGenerationOn()} makes calls almost as fast as
+ * handwritten ones.
  * </p>
  * 
  * @author Ronie Uliana
@@ -65,20 +102,30 @@ import java.util.Map;
  */
 public class DuckType {
 
-    private static final Map<Class<?>, Class<?>> primitiveEquivalents = new HashMap<Class<?>, Class<?>>();
-    static {
-        primitiveEquivalents.put(Boolean.class, Boolean.TYPE);
-        primitiveEquivalents.put(Character.class, Character.TYPE);
-        primitiveEquivalents.put(Byte.class, Byte.TYPE);
-        primitiveEquivalents.put(Short.class, Short.TYPE);
-        primitiveEquivalents.put(Integer.class, Integer.TYPE);
-        primitiveEquivalents.put(Long.class, Long.TYPE);
-        primitiveEquivalents.put(Float.class, Float.TYPE);
-        primitiveEquivalents.put(Double.class, Double.TYPE);
-    }
-
-    private static MethodCache cache = new SimpleMethodCache();
+    private static final Lookup lookup = MethodHandles.lookup();
+    private static volatile MethodCache cache = new IdentityMethodCache();
+    private static final AtomicReference<RetiringCache> retiringCache = new AtomicReference<RetiringCache>();
+    private static volatile InvocationEngine engine = new MethodHandleEngine(lookup);
+    // Goes with the default cache, replaced whenever the cache is
+    private static volatile MissingMethods missingMethods = new MissingMethods();
+    private static final PropertyIndex properties = new PropertyIndex(lookup);
+    private static volatile boolean missStackTraces = true;
+    private static volatile DispatchListener listener;
+    // Thrown over and over when stack traces are off, kept by object type
+    private static final ClassValue<Map<Signature, NoSuchMethodException>> failures = new ClassValue<Map<Signature, NoSuchMethodException>>() {
+        protected Map<Signature, NoSuchMethodException> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Signature, NoSuchMethodException>();
+        }
+    };
+    private static final Class<?>[] NO_ARGUMENT_TYPES = new Class<?>[0];
+    // For callInt and friends, kept with the class that declares the method
+    private static final ClassValue<Map<Method, PreparedCall>> preparedCalls = new ClassValue<Map<Method, PreparedCall>>() {
+        protected Map<Method, PreparedCall> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Method, PreparedCall>();
+        }
+    };
     private final Object object;
+    private final MethodCache scopedCache;
 
     /**
      * Turns method caching <strong>off</strong>.
@@ -93,7 +140,7 @@ public class DuckType {
      */
     public static void turnMethodCacheOff() {
         if (isMethodCacheOff()) return;
-        cache = new NoMethodCache();
+        swapCache(new NoMethodCache());
     }
 
     public static boolean isMethodCacheOff() {
@@ -114,11 +161,11 @@ public class DuckType {
      */
     public static void turnMethodCacheOn() {
         if (isMethodCacheOn()) return;
-        cache = new SimpleMethodCache();
+        swapCache(new IdentityMethodCache());
     }
 
     public static boolean isMethodCacheOn() {
-        return cache instanceof SimpleMethodCache;
+        return cache instanceof IdentityMethodCache;
     }
 
     /**
@@ -127,13 +174,44 @@ public class DuckType {
      * The engine provided in this method is lost if at any later time you call
      * {@link #turnMethodCacheOn()} or {@link #turnMethodCacheOff()}.
      * </p>
+     * <p>
+     * It's safe to change the engine while other threads are using DuckType.
+     * The old engine is still used (behind the new one) until the new one is
+     * warm, so changing it doesn't make everybody look for methods the hard
+     * way at once.
+     * </p>
      */
     public static void useCache(MethodCache cacheEngine) {
-        cache = cacheEngine;
+        swapCache(cacheEngine);
     }
 
     /**
-     * Returns the current cache engine. Very useful to get usage stats from it.
+     * Empties the current cache engine and forgets the missing methods, so
+     * every method is looked for the hard way once again.
+     */
+    public static synchronized void clearCache() {
+        retiringCache.set(null);
+        missingMethods = new MissingMethods();
+        cache.clear();
+    }
+
+    private static synchronized void swapCache(MethodCache newCache) {
+        MethodCache oldCache = cache;
+
+        // Nothing warm to keep, or the user wants no cache at all
+        if (oldCache instanceof NoMethodCache || newCache instanceof NoMethodCache || oldCache.size() == 0) {
+            retiringCache.set(null);
+        } else {
+            retiringCache.set(new RetiringCache(oldCache));
+        }
+        // Before the cache, so whoever sees the new cache sees the new table too
+        missingMethods = new MissingMethods();
+        cache = newCache;
+    }
+
+    /**
+     * Returns the current cache engine. Very useful to get usage stats from it
+     * (see {@link MethodCache#stats()}).
      * But you can also use it to operate the cache directly (whatever be the
      * reason of it).
      */
@@ -141,6 +219,210 @@ public class DuckType {
         return cache;
     }
 
+    /**
+     * Returns the methods DuckType looked for and couldn't find. Only the
+     * default cache remembers them (not when it's off, nor scoped caches), and
+     * they're forgotten whenever it's cleared or replaced.
+     */
+    public static MissingMethods getMissingMethods() {
+        return missingMethods;
+    }
+
+    /**
+     * Turns stack traces <strong>off</strong> for {@link NoSuchMethodException}.
+     * <p>
+     * Filling the stack trace is by far the most expensive part of a miss. If
+     * you try methods and fall back when they aren't there, turn it off: the
+     * same exception, without stack trace, is thrown for every miss of the same
+     * method, so a miss costs about the same as a hit. Or use
+     * {@link #callIfPresent(CharSequence, Object...)}, that throws nothing.
+     * </p>
+     * <p>
+     * Stack traces are on by default.
+     * </p>
+     */
+    public static void turnMissStackTracesOff() {
+        missStackTraces = false;
+    }
+
+    public static boolean isMissStackTracesOff() {
+        return !missStackTraces;
+    }
+
+    /**
+     * Turns stack traces <strong>on</strong> for
+     * {@link NoSuchMethodException}. Every miss builds a new exception.
+     */
+    public static void turnMissStackTracesOn() {
+        missStackTraces = true;
+    }
+
+    public static boolean isMissStackTracesOn() {
+        return missStackTraces;
+    }
+
+    /**
+     * Starts telling the listener about every call and every method found the
+     * hard way. Null turns it off, and that's the default.
+     * <p>
+     * Only {@link #call(CharSequence, Object...)} is traced. Prepared calls,
+     * call sites and the like are the fast paths, what you use after tracing
+     * showed you where the time goes.
+     * </p>
+     * 
+     * @see ginger.ducktype.DispatchStats
+     */
+    public static void useDispatchListener(DispatchListener dispatchListener) {
+        listener = dispatchListener;
+    }
+
+    public static DispatchListener getDispatchListener() {
+        return listener;
+    }
+
+    /**
+     * Fills the cache with the methods of these signatures, so nobody has to
+     * look for them the hard way on the first calls.
+     * <p>
+     * Classes are handled in parallel, each one by a thread of the common
+     * {@link ForkJoinPool}. Methods that don't exist are remembered as
+     * missing, just like a call would do.
+     * </p>
+     * 
+     * @return How many methods were found.
+     */
+    public static int preload(Iterable<Signature> signatures) {
+        Map<Class<?>, List<Signature>> byClass = new IdentityHashMap<Class<?>, List<Signature>>();
+        for (Signature signature : signatures) {
+            List<Signature> sameClass = byClass.get(signature.getObjectType());
+            if (sameClass == null) {
+                sameClass = new ArrayList<Signature>();
+                byClass.put(signature.getObjectType(), sameClass);
+            }
+            sameClass.add(signature);
+        }
+
+        List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+        for (List<Signature> sameClass : byClass.values()) {
+            tasks.add(new Preload(cache, sameClass));
+        }
+
+        int result = 0;
+        for (Future<Integer> found : ForkJoinPool.commonPool().invokeAll(tasks)) {
+            try {
+                result += found.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #preload(Iterable)}, reading the signatures from a file
+     * (see {@link SignatureFile} for the format). Usually the file written by
+     * {@link #saveWarmMethods(File)} the last time the application ran.
+     * 
+     * @return How many methods were found.
+     */
+    public static int loadWarmMethods(File file) throws IOException {
+        return preload(SignatureFile.read(file));
+    }
+
+    /**
+     * Writes the signatures of every method in cache to the file, so the next
+     * run can start with a warm cache using {@link #loadWarmMethods(File)}.
+     * Call it when the application stops.
+     */
+    public static void saveWarmMethods(File file) throws IOException {
+        SignatureFile.write(cache.signatures(), file);
+    }
+
+    /**
+     * Turns method handles <strong>off</strong>, executing methods with
+     * reflection.
+     * <p>
+     * Method handles are enable by default. Reflection is slower, but it can
+     * be useful if you suspect the method handles are misbehaving.
+     * </p>
+     * <p>
+     * If you use your own invocation engine, this method will remove it from
+     * DuckType and you have to set it again with
+     * {@link #useInvocationEngine(InvocationEngine)}.
+     * </p>
+     */
+    public static void turnMethodHandlesOff() {
+        if (isMethodHandlesOff()) return;
+        engine = new ReflectionEngine(lookup);
+    }
+
+    public static boolean isMethodHandlesOff() {
+        return engine instanceof ReflectionEngine;
+    }
+
+    /**
+     * Turns method handles <strong>on</strong>.
+     * <p>
+     * They are already enable by default. It has no effect if method handles
+     * are already enabled.
+     * </p>
+     * <p>
+     * If you use your own invocation engine, this method will revert it to the
+     * default engine.
+     * </p>
+     */
+    public static void turnMethodHandlesOn() {
+        if (isMethodHandlesOn()) return;
+        engine = new MethodHandleEngine(lookup);
+    }
+
+    public static boolean isMethodHandlesOn() {
+        return engine instanceof MethodHandleEngine;
+    }
+
+    /**
+     * Turns bytecode generation <strong>on</strong>.
+     * <p>
+     * A tiny class is generated for each method DuckType calls, so calling it
+     * costs about the same as a handwritten call. The first call of each
+     * method is way slower, though, so it only pays off in hot loops. It's off
+     * by default, use {@link #turnMethodHandlesOn()} to turn it off again.
+     * </p>
+     * <p>
+     * If you use your own invocation engine, this method will remove it from
+     * DuckType.
+     * </p>
+     */
+    public static void turnBytecodeGenerationOn() {
+        if (isBytecodeGenerationOn()) return;
+        engine = new BytecodeEngine(lookup);
+    }
+
+    public static boolean isBytecodeGenerationOn() {
+        return engine instanceof BytecodeEngine;
+    }
+
+    /**
+     * Changes the default invocation engine by one provided by the user.
+     * <p>
+     * The engine provided in this method is lost if at any later time you call
+     * {@link #turnMethodHandlesOn()} or {@link #turnMethodHandlesOff()}.
+     * </p>
+     */
+    public static void useInvocationEngine(InvocationEngine invocationEngine) {
+        engine = invocationEngine;
+    }
+
+    /**
+     * Returns the current invocation engine.
+     */
+    public static InvocationEngine getInvocationEngine() {
+        return engine;
+    }
+
     /**
      * Alias method for "new DuckType(object)", intended to me used with static
      * import.
@@ -169,12 +451,205 @@ public class DuckType {
         return new DuckType(object);
     }
 
+    /**
+     * Finds a method once and returns something that can call it over and
+     * over, with no lookup at all.
+     * <p>
+     * Use it when you call the same method on lots of objects of the same type.
+     * </p>
+     * 
+     * <pre>
+     * PreparedCall substring = DuckType.prepare(String.class, "substring", int.class, int.class);
+     * for (String string : strings) {
+     *     String result = substring.invoke(string, 6, 10);
+     * }
+     * </pre>
+     * 
+     * @param objectType
+     *            The type of the objects the method will be called on.
+     * @param methodName
+     *            The name of the method. Still case sensitive.
+     * @param argumentTypes
+     *            The types of the arguments you will pass, if any. Primitives
+     *            and their wrappers are both fine.
+     * @throws NoSuchMethodException
+     *             A custom NoSuchMethodException that's not checked.
+     */
+    public static PreparedCall prepare(Class<?> objectType, CharSequence methodName, Class<?>... argumentTypes)
+            throws NoSuchMethodException {
+
+        Method method = lookupMethod(cache, objectType, methodName.toString(), argumentTypes);
+
+        try {
+
+            return new PreparedCall(method, invokerOf(method), directHandle(method));
+
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Creates a call site for the method: keep it where you call the method
+     * and it will remember the methods of the few classes it sees. See
+     * {@link CallSite}.
+     * 
+     * <pre>
+     * private static final CallSite close = DuckType.callSite("close");
+     * ...
+     * close.call(resource);
+     * </pre>
+     * 
+     * @param argumentTypes
+     *            The types of the arguments you will pass, if any.
+     */
+    public static CallSite callSite(CharSequence methodName, Class<?>... argumentTypes) {
+        return new CallSite(methodName.toString(), argumentTypes);
+    }
+
+    /**
+     * Compiles a chain of calls to methods without arguments, to be used on
+     * many objects.
+     * <p>
+     * It does the same as {@link #chain(CharSequence, Object...)}, but methods
+     * are found once per class (not once per call) and there is no DuckType
+     * created along the way.
+     * </p>
+     * 
+     * <pre>
+     * ChainedCall city = DuckType.path("getAddress", "getCity", "getName");
+     * for (Object person : people) {
+     *     String name = city.call(person);
+     * }
+     * </pre>
+     */
+    public static ChainedCall path(CharSequence... methodNames) {
+        return new ChainedCall(methodNames);
+    }
+
+    /**
+     * Reads a property of the object, through its getter (<em>getName()</em>
+     * or <em>isName()</em>) or its public field.
+     * <p>
+     * The properties of each class are found only once and kept as method
+     * handles, so this is way faster than
+     * <code>d(object).call("getName")</code>. See {@link PropertyIndex} for the
+     * rules.
+     * </p>
+     * 
+     * <pre>
+     * String name = DuckType.get(person, "name");
+     * </pre>
+     * 
+     * @return The value of the property, or null if the object is null.
+     * @throws NoSuchMethodException
+     *             If there is no such property, or it can't be read.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(Object object, String property) throws NoSuchMethodException {
+
+        // Guard clause
+        if (object == null) return null;
+
+        Property found = properties.find(object.getClass(), property);
+        if (found == null || !found.isReadable()) throw noSuchProperty(object, property, "readable");
+
+        try {
+
+            return (T) found.get(object);
+
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes a property of the object, through its setter
+     * (<em>setName(value)</em>) or its public field. Does nothing if the
+     * object is null.
+     * 
+     * <pre>
+     * DuckType.set(person, "name", "Duke");
+     * </pre>
+     * 
+     * @throws NoSuchMethodException
+     *             If there is no such property, or it can't be written.
+     */
+    public static void set(Object object, String property, Object value) throws NoSuchMethodException {
+
+        // Guard clause
+        if (object == null) return;
+
+        Property found = properties.find(object.getClass(), property);
+        if (found == null || !found.isWritable()) throw noSuchProperty(object, property, "writable");
+
+        try {
+
+            found.set(object, value);
+
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static NoSuchMethodException noSuchProperty(Object object, String property, String kind) {
+        String description = "No " + kind + " property " + property + " in " + object.getClass().getName();
+        return new NoSuchMethodException(new java.lang.NoSuchMethodException(description));
+    }
+
+    /**
+     * Calls the same method on every object, returning the results in the same
+     * order. Null objects give null results.
+     * <p>
+     * It's way faster than calling {@link #call(CharSequence, Object...)} in a
+     * loop: the method is found only once for each class of object, and there
+     * is no DuckType in between.
+     * </p>
+     * 
+     * <pre>
+     * Seq&lt;String&gt; names = DuckType.callAll(people, "getName");
+     * </pre>
+     * 
+     * @throws NoSuchMethodException
+     *             If any object doesn't have the method.
+     */
+    public static <T> Seq<T> callAll(Iterable<?> objects, CharSequence methodName, Object... arguments)
+            throws NoSuchMethodException {
+
+        return new BulkCall(methodName.toString(), arguments).callAll(objects);
+    }
+
+    /**
+     * Same as {@link #callAll(Iterable, CharSequence, Object...)}, but splits
+     * the objects among all processors. Only worth it for lots of objects or
+     * slow methods.
+     */
+    public static <T> Seq<T> callAllInParallel(Iterable<?> objects, CharSequence methodName, Object... arguments)
+            throws NoSuchMethodException {
+
+        return new BulkCall(methodName.toString(), arguments).callAllInParallel(objects);
+    }
+
     /**
      * You can call any method dynamically on the object passed as parameter
      * using {@link #call(String, Object...)}.
      */
     public DuckType(Object object) {
+        this(object, null);
+    }
+
+    /**
+     * Same as {@link #DuckType(Object)}, but looks for methods in the cache
+     * engine provided, instead of the one shared by the whole JVM.
+     * <p>
+     * Nice if you have independent parts of your application (tenants,
+     * plugins...) that shouldn't fight for the same cache. Chained calls keep
+     * using the same cache engine.
+     * </p>
+     */
+    public DuckType(Object object, MethodCache cacheEngine) {
         this.object = object;
+        this.scopedCache = cacheEngine;
     }
 
     /**
@@ -204,27 +679,136 @@ public class DuckType {
         // Guard clause
         if (object == null) return null;
 
-        String immutableMethodName = methodName.toString();
+        // Tracing is off almost always, keep it out of the way
+        DispatchListener listener = DuckType.listener;
+        if (listener != null) return (T) callTraced(listener, methodName.toString(), arguments);
+
+        Method method = lookupMethod(cache(), object.getClass(), methodName.toString(), classesFor(arguments));
+
+        return (T) invoke(method, arguments);
+    }
+
+    private Object callTraced(DispatchListener listener, String methodName, Object[] arguments) {
         Class<?>[] argumentTypes = classesFor(arguments);
-        String objectType = object.getClass().getName();
 
-        Method method = cache.get(objectType, immutableMethodName, argumentTypes);
+        long start = System.nanoTime();
+        Method method = lookupMethod(cache(), object.getClass(), methodName, argumentTypes);
+        long found = System.nanoTime();
+        Object result = invoke(method, arguments);
+        long end = System.nanoTime();
 
-        // If no method in cache, go find it and fill my cache
-        if (method == null) {
-            method = findMethod(immutableMethodName, argumentTypes);
-            cache.put(method, objectType, immutableMethodName, argumentTypes);
-        }
+        listener.methodCalled(object.getClass(), methodName, argumentTypes, found - start, end - found);
+        return result;
+    }
 
-        try {
+    /**
+     * Same as {@link #call(CharSequence, Object...)}, for methods returning an
+     * int (or something that converts to int), without boxing the result.
+     * <p>
+     * With no arguments and a method already in cache, it makes no garbage at
+     * all. For primitive arguments, see {@link PreparedCall#invokeInt(Object)}.
+     * </p>
+     * 
+     * @throws NullPointerException
+     *             If the object is null, as there is no int to return.
+     */
+    public int callInt(CharSequence methodName) throws NoSuchMethodException {
+        return preparedCallFor(methodName, NO_ARGUMENT_TYPES).invokeInt(object);
+    }
 
-            return (T) method.invoke(object, arguments);
+    /**
+     * Same as {@link #callInt(CharSequence)}, with arguments.
+     * <p>
+     * Only the return value escapes boxing: the arguments are boxed, as with
+     * {@link #call(CharSequence, Object...)}, and their classes are gathered
+     * in a new array on every call. To pass a primitive without boxing it,
+     * prepare the call and use {@link PreparedCall#invokeInt(Object, int)}
+     * (and friends).
+     * </p>
+     */
+    public int callInt(CharSequence methodName, Object... arguments) throws NoSuchMethodException {
+        return preparedCallFor(methodName, classesFor(arguments)).invokeInt(object, arguments);
+    }
 
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * Same as {@link #callInt(CharSequence)}, returning a long.
+     */
+    public long callLong(CharSequence methodName) throws NoSuchMethodException {
+        return preparedCallFor(methodName, NO_ARGUMENT_TYPES).invokeLong(object);
+    }
+
+    /**
+     * Same as {@link #callLong(CharSequence)}, with arguments. Only the return
+     * value escapes boxing, see {@link #callInt(CharSequence, Object...)}.
+     */
+    public long callLong(CharSequence methodName, Object... arguments) throws NoSuchMethodException {
+        return preparedCallFor(methodName, classesFor(arguments)).invokeLong(object, arguments);
+    }
+
+    /**
+     * Same as {@link #callInt(CharSequence)}, returning a double.
+     */
+    public double callDouble(CharSequence methodName) throws NoSuchMethodException {
+        return preparedCallFor(methodName, NO_ARGUMENT_TYPES).invokeDouble(object);
+    }
+
+    /**
+     * Same as {@link #callDouble(CharSequence)}, with arguments. Only the return
+     * value escapes boxing, see {@link #callInt(CharSequence, Object...)}.
+     */
+    public double callDouble(CharSequence methodName, Object... arguments) throws NoSuchMethodException {
+        return preparedCallFor(methodName, classesFor(arguments)).invokeDouble(object, arguments);
+    }
+
+    /**
+     * Same as {@link #callInt(CharSequence)}, returning a boolean.
+     */
+    public boolean callBoolean(CharSequence methodName) throws NoSuchMethodException {
+        return preparedCallFor(methodName, NO_ARGUMENT_TYPES).invokeBoolean(object);
+    }
+
+    /**
+     * Same as {@link #callBoolean(CharSequence)}, with arguments. Only the return
+     * value escapes boxing, see {@link #callInt(CharSequence, Object...)}.
+     */
+    public boolean callBoolean(CharSequence methodName, Object... arguments) throws NoSuchMethodException {
+        return preparedCallFor(methodName, classesFor(arguments)).invokeBoolean(object, arguments);
+    }
+
+    /**
+     * Checks if {@link #call(CharSequence, Object...)} would find a method for
+     * these arguments, without calling it.
+     * <p>
+     * It never throws {@link NoSuchMethodException} and methods not found are
+     * remembered, so asking again is cheap. A null object responds to nothing.
+     * </p>
+     */
+    public boolean respondsTo(CharSequence methodName, Object... arguments) {
+
+        // Guard clause
+        if (object == null) return false;
+
+        return resolveMethod(cache(), object.getClass(), methodName.toString(), classesFor(arguments)) != null;
+    }
+
+    /**
+     * Same as {@link #call(CharSequence, Object...)}, but if there is no such
+     * method it just returns null.
+     * <p>
+     * Nice for optional methods, like "call <em>close</em> if there is one".
+     * Methods not found are remembered, so missing it again is cheap.
+     * </p>
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T callIfPresent(CharSequence methodName, Object... arguments) {
+
+        // Guard clause
+        if (object == null) return null;
+
+        Method method = resolveMethod(cache(), object.getClass(), methodName.toString(), classesFor(arguments));
+        if (method == null) return null;
+
+        return (T) invoke(method, arguments);
     }
 
     /**
@@ -240,170 +824,286 @@ public class DuckType {
      */
     public DuckType callChained(CharSequence methodName, Object... arguments) throws NoSuchMethodException {
 
-        return new DuckType(call(methodName, arguments));
+        return new DuckType(call(methodName, arguments), scopedCache);
     }
 
-    /**
-     * Try its best to find the right method. First it tries the easiest way
-     * possible, if it can't find the method, it tries harder.
-     */
-    private Method findMethod(String methodName, Class<?>... argumentTypes) {
+    private Object invoke(Method method, Object[] arguments) {
         try {
 
-            return findMethodEasyWay(methodName, argumentTypes);
+            return invokerOf(method).invoke(object, arguments);
 
-            /*
-             * I'm not really proud of using a catch to provide an alternative
-             * path, but hell, I guess my intention can't be clearer!
-             */
-        } catch (java.lang.NoSuchMethodException e) {
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            Method method = findMethodHardWay(methodName, argumentTypes);
+    private MethodCache cache() {
+        return scopedCache == null ? cache : scopedCache;
+    }
 
-            if (method == null) throw new NoSuchMethodException(e);
+    private PreparedCall preparedCallFor(CharSequence methodName, Class<?>[] argumentTypes) {
+        if (object == null) throw new NullPointerException("Can't call " + methodName + " on null");
 
-            return method;
+        Method method = lookupMethod(cache(), object.getClass(), methodName.toString(), argumentTypes);
+        Map<Method, PreparedCall> declaredCalls = preparedCalls.get(method.getDeclaringClass());
+        PreparedCall result = declaredCalls.get(method);
 
-        } catch (SecurityException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException(e);
+        // First time here, prepare it and remember
+        if (result == null) {
+            try {
+
+                result = new PreparedCall(method, invokerOf(method), directHandle(method));
+
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+            declaredCalls.put(method, result);
         }
+        return result;
     }
 
     /**
-     * "Easy way" is to call "getMethod" directly. Unfortunately, there are
-     * several cases when this does not match, mainly if the argument types are
-     * superclasses of the arguments you have or if they are primitives.
+     * The invoker of the engine in use, packing the arguments of varargs
+     * methods.
      */
-    private Method findMethodEasyWay(String methodName, Class<?>[] argumentTypes)
-            throws java.lang.NoSuchMethodException {
-
-        return objectClass().getMethod(methodName, argumentTypes);
+    private static Invoker invokerOf(Method method) throws IllegalAccessException {
+        return VarargsInvoker.wrap(method, engine.invokerFor(method));
     }
 
     /**
-     * "Hard way" means to try the most suitable method (same name and number of
-     * arguments) and check if there is any possibility of the arguments to be
-     * compatible.
+     * A handle straight to the method, always taking the target first.
      */
-    private Method findMethodHardWay(String methodName, Class<?>[] argumentTypes) {
+    private static MethodHandle directHandle(Method method) throws IllegalAccessException {
+        MethodHandle handle = lookup.unreflect(method).asFixedArity();
 
-        nextMethod: for (Method method : objectClass().getMethods()) {
-            Class<?>[] parameterTypes = method.getParameterTypes();
+        // Static methods ignore the target, just like reflection does
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        return handle;
+    }
+
+    /**
+     * Finds the method for objects of that class, using the default cache
+     * engine, and something to invoke it.
+     */
+    static Invoker invokerFor(Class<?> objectClass, String methodName, Class<?>[] argumentTypes)
+            throws NoSuchMethodException {
 
-            if (!methodName.equals(method.getName())) continue nextMethod;
-            if (parameterTypes.length != argumentTypes.length) continue nextMethod;
+        Method method = lookupMethod(cache, objectClass, methodName, argumentTypes);
+        try {
 
-            for (int i = 0; i < parameterTypes.length; i++)
-                if (notCompatible(parameterTypes[i], argumentTypes[i])) continue nextMethod;
+            return invokerOf(method);
 
-            return method;
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
         }
-        return null;
     }
 
     /**
-     * Check for type compatibility.
-     * <p>
-     * "Compatibility" means:
-     * </p>
-     * <ul>
-     * <li>Type1 is a primitive and type2 is and object that can be "autoboxed"
-     * to the primitive;</li>
-     * <li>Type1 is a an ancestor of type2.</li>
-     * </ul>
+     * Same as {@link #resolveMethod(MethodCache, Class, String, Class[])}, but
+     * complains if there is no such method.
      */
-    private boolean isCompatible(Class<?> type1, Class<?> type2) {
-        return primitivelyCompatible(type1, type2) || assignableCompatible(type1, type2);
+    private static Method lookupMethod(MethodCache cache, Class<?> objectClass, String methodName,
+            Class<?>[] argumentTypes) {
+        Method method = resolveMethod(cache, objectClass, methodName, argumentTypes);
+
+        if (method == null) throw missing(cache, objectClass, methodName, argumentTypes);
+        return method;
     }
 
-    private boolean notCompatible(Class<?> type1, Class<?> type2) {
-        return !isCompatible(type1, type2);
+    private static NoSuchMethodException missing(MethodCache cache, Class<?> objectClass, String methodName,
+            Class<?>[] argumentTypes) {
+        if (missStackTraces) return new NoSuchMethodException(new Signature(objectClass, methodName, argumentTypes));
+
+        MissingMethods missing = missingMethodsFor(cache);
+        Signature signature = missing == null ? null : missing.find(objectClass, methodName, argumentTypes);
+        if (signature == null) {
+            // Not remembered (no cache), so there is nothing to reuse
+            return new NoSuchMethodException(new Signature(objectClass, methodName, argumentTypes), false);
+        }
+
+        Map<Signature, NoSuchMethodException> classFailures = failures.get(objectClass);
+        NoSuchMethodException result = classFailures.get(signature);
+
+        // First miss, create it and remember
+        if (result == null) {
+            result = new NoSuchMethodException(signature, false);
+            classFailures.put(signature, result);
+        }
+        return result;
     }
 
-    private boolean primitivelyCompatible(Class<?> type1, Class<?> type2) {
-        return type1.isPrimitive() && type1.equals(toPrimitive(type2));
+    /**
+     * Finds the method in cache. If it's not there, go find it and fill the
+     * cache. Returns null if there is no such method, and remembers it, so we
+     * don't try that hard again.
+     */
+    private static Method resolveMethod(MethodCache cache, Class<?> objectClass, String methodName,
+            Class<?>[] argumentTypes) {
+        Method method = cache.get(objectClass, methodName, argumentTypes);
+        if (method != null) return method;
+
+        method = findInRetiringCache(cache, objectClass, methodName, argumentTypes);
+        if (method != null) return method;
+
+        MissingMethods missing = missingMethodsFor(cache);
+        if (missing != null && missing.contains(objectClass, methodName, argumentTypes)) return null;
+
+        long start = System.nanoTime();
+        method = findMethod(objectClass, methodName, argumentTypes);
+        long loadTime = System.nanoTime() - start;
+        cache.recordLoad(loadTime);
+
+        DispatchListener listener = DuckType.listener;
+        if (listener != null) listener.methodResolved(objectClass, methodName, argumentTypes, method, loadTime);
+
+        if (method == null) {
+            // No cache, no memory at all
+            if (missing != null) missing.add(objectClass, methodName, argumentTypes);
+            return null;
+        }
+
+        cache.put(method, objectClass, methodName, argumentTypes);
+        return method;
     }
 
-    private boolean assignableCompatible(Class<?> type1, Class<?> type2) {
-        return !type1.isPrimitive() && type1.isAssignableFrom(type2);
+    /**
+     * The missing methods remembered along with the cache, or null if it
+     * doesn't remember them: caching is off, or it's a scoped cache that
+     * DuckType can't tell when is cleared.
+     */
+    private static MissingMethods missingMethodsFor(MethodCache cache) {
+        if (cache != DuckType.cache || cache instanceof NoMethodCache) return null;
+        return missingMethods;
     }
 
-    private Class<?> toPrimitive(Class<?> clazz) {
-        return primitiveEquivalents.get(clazz);
+    /**
+     * If the default cache engine was just replaced, the old one can still
+     * have the method. Whatever we find there moves to the new one.
+     */
+    private static Method findInRetiringCache(MethodCache cache, Class<?> objectClass, String methodName,
+            Class<?>[] argumentTypes) {
+        RetiringCache retiring = retiringCache.get();
+        if (retiring == null || cache != DuckType.cache) return null;
+
+        Method method = retiring.get(objectClass, methodName, argumentTypes);
+        if (method != null) cache.put(method, objectClass, methodName, argumentTypes);
+
+        // Warm enough, let it go
+        if (retiring.isDone(cache)) retiringCache.compareAndSet(retiring, null);
+
+        return method;
     }
 
-    private Class<? extends Object> objectClass() {
-        return object.getClass();
+    /**
+     * Try its best to find the right method: the one the compiler would choose
+     * if it knew the types of the arguments. Null if it can't find it at all.
+     */
+    private static Method findMethod(Class<?> objectClass, String methodName, Class<?>... argumentTypes) {
+        return MethodIndex.of(objectClass).find(methodName, argumentTypes);
     }
 
-    private Class<?>[] classesFor(Object[] arguments) {
+    /**
+     * The shape of the arguments. Nulls get their own marker ({@link Null}),
+     * so they find the right methods and get their own cache entries.
+     */
+    static Class<?>[] classesFor(Object[] arguments) {
         Class<?>[] result = new Class[arguments.length];
         for (int i = 0; i < arguments.length; i++) {
             result[i] = arguments[i] == null
-                    ? Object.class
+                    ? Null.class
                     : arguments[i].getClass();
         }
         return result;
     }
 
     /**
-     * RuntimeException version of {@link java.lang.NoSuchMethodException}.
-     * <p>
-     * It was made to be as transparent as possible.
-     * </p>
+     * A cache engine just replaced. It's used until the new one has as many
+     * methods as it had, or until we asked it that many times.
      */
-    @SuppressWarnings("serial")
-    public static class NoSuchMethodException extends RuntimeException {
-        private final java.lang.NoSuchMethodException e;
+    private static class RetiringCache {
+        private final MethodCache cache;
+        private final int size;
+        private final AtomicInteger requests = new AtomicInteger();
 
-        public NoSuchMethodException(java.lang.NoSuchMethodException e) {
-            this.e = e;
+        public RetiringCache(MethodCache cache) {
+            this.cache = cache;
+            this.size = cache.size();
         }
 
-        public Throwable fillInStackTrace() {
-            return e.fillInStackTrace();
+        public Method get(Class<?> objectClass, String methodName, Class<?>[] argumentTypes) {
+            requests.incrementAndGet();
+            return cache.get(objectClass, methodName, argumentTypes);
         }
 
-        public Throwable getCause() {
-            return e.getCause();
+        public boolean isDone(MethodCache newCache) {
+            return requests.get() >= size || newCache.size() >= size;
         }
+    }
 
-        public String getLocalizedMessage() {
-            return e.getLocalizedMessage();
-        }
+    /**
+     * Resolves the methods of one class into the cache.
+     */
+    private static class Preload implements Callable<Integer> {
+        private final MethodCache cache;
+        private final List<Signature> signatures;
 
-        public String getMessage() {
-            return e.getMessage();
+        public Preload(MethodCache cache, List<Signature> signatures) {
+            this.cache = cache;
+            this.signatures = signatures;
         }
 
-        public StackTraceElement[] getStackTrace() {
-            return e.getStackTrace();
+        public Integer call() {
+            int found = 0;
+            for (Signature signature : signatures) {
+                Method method = resolveMethod(cache, signature.getObjectType(), signature.getMethodName(),
+                                              signature.getArgumentTypes());
+                if (method != null) found++;
+            }
+            return found;
         }
+    }
 
-        public Throwable initCause(Throwable cause) {
-            return e.initCause(cause);
-        }
+    /**
+     * RuntimeException version of {@link java.lang.NoSuchMethodException}.
+     * <p>
+     * The message is the signature DuckType couldn't find, built only if
+     * somebody asks for it. With {@link DuckType#turnMissStackTracesOff()},
+     * it has no stack trace and the same instance is thrown for every miss of
+     * the same method.
+     * </p>
+     */
+    @SuppressWarnings("serial")
+    public static class NoSuchMethodException extends RuntimeException {
+        private final Signature signature;
 
-        public void printStackTrace() {
-            e.printStackTrace();
+        public NoSuchMethodException(java.lang.NoSuchMethodException e) {
+            super(e.getMessage(), e.getCause());
+            setStackTrace(e.getStackTrace());
+            this.signature = null;
         }
 
-        public void printStackTrace(PrintStream s) {
-            e.printStackTrace(s);
+        public NoSuchMethodException(Signature signature) {
+            this(signature, true);
         }
 
-        public void printStackTrace(PrintWriter s) {
-            e.printStackTrace(s);
+        NoSuchMethodException(Signature signature, boolean writableStackTrace) {
+            super(null, null, false, writableStackTrace);
+            this.signature = signature;
         }
 
-        public void setStackTrace(StackTraceElement[] stackTrace) {
-            e.setStackTrace(stackTrace);
+        /**
+         * The method that wasn't found, if we know it.
+         */
+        public Signature getSignature() {
+            return signature;
         }
 
-        public String toString() {
-            return e.toString();
+        public String getMessage() {
+            return signature == null ? super.getMessage() : signature.toString();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,257 @@
+package ginger;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.LongStream;
+
+/**
+ * A {@link Seq} of longs, straight in a <code>long[]</code>: no boxing, no
+ * nodes, 8 bytes per element (plus some room to grow).
+ * <p>
+ * The elements sit in the middle of the array, with room on both sides, so
+ * {@link #append(long)} and {@link #prepend(long)} are both O(1) (amortized,
+ * when it has to grow). And they are always in one piece, so sorting and
+ * searching go straight to {@link Arrays}.
+ * </p>
+ * <p>
+ * It's not thread safe.
+ * </p>
+ */
+public class LongSeq {
+    private static final int MINIMUM_CAPACITY = 8;
+
+    private long[] values;
+    private int start;
+    private int end;
+
+    public static LongSeq longs(long... values) {
+        return new LongSeq(values);
+    }
+
+    /**
+     * Each element of the objects converted to a long, with no boxing on the
+     * way (if the function doesn't box).
+     */
+    public static <T> LongSeq longs(Iterable<T> objects, ToLongFunction<? super T> function) {
+        LongSeq result = new LongSeq();
+        for (T object : objects) {
+            result.append(function.applyAsLong(object));
+        }
+        return result;
+    }
+
+    public LongSeq() {
+        this.values = new long[MINIMUM_CAPACITY];
+    }
+
+    /**
+     * A copy of the values.
+     */
+    public LongSeq(long... values) {
+        this.values = Arrays.copyOf(values, Math.max(values.length, MINIMUM_CAPACITY));
+        this.end = values.length;
+    }
+
+    public int size() {
+        return end - start;
+    }
+
+    public boolean isEmpty() {
+        return end == start;
+    }
+
+    public long get(int index) {
+        checkIndex(index);
+        return values[start + index];
+    }
+
+    /**
+     * @return The value that was there.
+     */
+    public long set(int index, long value) {
+        checkIndex(index);
+        long old = values[start + index];
+        values[start + index] = value;
+        return old;
+    }
+
+    public long getFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return values[start];
+    }
+
+    public long getLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return values[end - 1];
+    }
+
+    public LongSeq append(long value) {
+        if (end == values.length) grow(1);
+        values[end++] = value;
+        return this;
+    }
+
+    public LongSeq prepend(long value) {
+        if (start == 0) grow(1);
+        values[--start] = value;
+        return this;
+    }
+
+    public LongSeq appendAll(LongSeq other) {
+        int count = other.size();
+        if (end + count > values.length) grow(count);
+        System.arraycopy(other.values, other.start, values, end, count);
+        end += count;
+        return this;
+    }
+
+    public void clear() {
+        start = end = 0;
+    }
+
+    // Bulk operations
+
+    public long sum() {
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            result += values[i];
+        }
+        return result;
+    }
+
+    /**
+     * @throws NoSuchElementException
+     *             If there are no elements.
+     */
+    public long min() {
+        long result = getFirst();
+        for (int i = start + 1; i < end; i++) {
+            if (values[i] < result) result = values[i];
+        }
+        return result;
+    }
+
+    /**
+     * @throws NoSuchElementException
+     *             If there are no elements.
+     */
+    public long max() {
+        long result = getFirst();
+        for (int i = start + 1; i < end; i++) {
+            if (values[i] > result) result = values[i];
+        }
+        return result;
+    }
+
+    /**
+     * Sorts in place, ascending.
+     */
+    public LongSeq sort() {
+        Arrays.sort(values, start, end);
+        return this;
+    }
+
+    /**
+     * Same as {@link Arrays#binarySearch(long[], long)}: the index of the value,
+     * or <code>(-(insertion point) - 1)</code> if it's not there. Only works
+     * if it's sorted.
+     */
+    public int binarySearch(long value) {
+        int result = Arrays.binarySearch(values, start, end, value);
+        return result >= 0 ? result - start : result + start;
+    }
+
+    public void forEach(LongConsumer consumer) {
+        for (int i = start; i < end; i++) {
+            consumer.accept(values[i]);
+        }
+    }
+
+    // Conversions
+
+    /**
+     * Each value converted to an object.
+     */
+    public <R> Seq<R> mapToObj(LongFunction<? extends R> function) {
+        Seq<R> result = new Seq<R>();
+        for (int i = start; i < end; i++) {
+            result.add(function.apply(values[i]));
+        }
+        return result;
+    }
+
+    /**
+     * The values as Longs, the only place where they get boxed.
+     */
+    public Seq<Long> boxed() {
+        Seq<Long> result = new Seq<Long>();
+        for (int i = start; i < end; i++) {
+            result.add(values[i]);
+        }
+        return result;
+    }
+
+    public LongStream stream() {
+        return Arrays.stream(values, start, end);
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOfRange(values, start, end);
+    }
+
+    public String join() {
+        return join(", ");
+    }
+
+    public String join(CharSequence separator) {
+        StringBuilder result = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            if (i > start) result.append(separator);
+            result.append(values[i]);
+        }
+        return result.toString();
+    }
+
+    public boolean equals(Object other) {
+        if (other == this) return true;
+        if (!(other instanceof LongSeq)) return false;
+        LongSeq otherSeq = (LongSeq) other;
+        return Arrays.equals(values, start, end, otherSeq.values, otherSeq.start, otherSeq.end);
+    }
+
+    public int hashCode() {
+        int result = 1;
+        for (int i = start; i < end; i++) {
+            result = 31 * result + Long.hashCode(values[i]);
+        }
+        return result;
+    }
+
+    public String toString() {
+        return "[" + join() + "]";
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    /**
+     * Room for <em>more</em> values, at least, moving the values to the middle
+     * so both sides can grow.
+     */
+    private void grow(int more) {
+        int size = size();
+        int capacity = Math.max(MINIMUM_CAPACITY, (size + more) * 2);
+        long[] grown = new long[capacity];
+        int newStart = (capacity - size) / 2;
+        System.arraycopy(values, start, grown, newStart, size);
+        values = grown;
+        start = newStart;
+        end = newStart + size;
+    }
+}
@@ -0,0 +1,201 @@
+package ginger;
+
+import ginger.seq.ArrayStorage;
+
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The parallel operations of {@link Seq}.
+ * <p>
+ * The elements come from a spliterator that knows the exact size of each half
+ * ({@link Spliterator#SUBSIZED}), so every slice knows where its results go
+ * and no one waits for anyone to put them in order.
+ * </p>
+ */
+class ParallelOperations<T> {
+    /**
+     * Slices for each thread of the pool, so a slow slice doesn't keep the
+     * others waiting.
+     */
+    private static final int SLICES_PER_THREAD = 4;
+
+    /**
+     * Result of a slice with no elements, for reduce without an identity.
+     */
+    private static final Object NOTHING = new Object();
+
+    private final ForkJoinPool pool;
+    private final Spliterator<T> elements;
+    private final int size;
+    private final long sliceSize;
+
+    public ParallelOperations(ForkJoinPool pool, Spliterator<T> elements) {
+        this.pool = pool;
+        this.elements = elements;
+        this.size = (int) elements.getExactSizeIfKnown();
+        this.sliceSize = Math.max(1, size / (pool.getParallelism() * SLICES_PER_THREAD));
+    }
+
+    public <R> Seq<R> map(final Function<? super T, ? extends R> function) {
+        final Object[] results = new Object[size];
+        run(new Job() {
+            public Object leaf(Spliterator<T> items, final int offset) {
+                items.forEachRemaining(new Consumer<T>() {
+                    private int index = offset;
+
+                    public void accept(T element) {
+                        results[index++] = function.apply(element);
+                    }
+                });
+                return null;
+            }
+        });
+        return toSeq(results, results.length);
+    }
+
+    public Seq<T> filter(final Predicate<? super T> predicate) {
+        final Object[] elementsKept = new Object[size];
+        final boolean[] kept = new boolean[size];
+        run(new Job() {
+            public Object leaf(Spliterator<T> items, final int offset) {
+                items.forEachRemaining(new Consumer<T>() {
+                    private int index = offset;
+
+                    public void accept(T element) {
+                        elementsKept[index] = element;
+                        kept[index++] = predicate.test(element);
+                    }
+                });
+                return null;
+            }
+        });
+
+        // Only copying what's left, way cheaper than the tests themselves
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (kept[i]) elementsKept[count++] = elementsKept[i];
+        }
+        return toSeq(elementsKept, count);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T reduce(final T identity, final BinaryOperator<T> operator) {
+        return (T) run(new Job() {
+            public Object leaf(Spliterator<T> items, int offset) {
+                Reduction reduction = new Reduction(operator, identity);
+                items.forEachRemaining(reduction);
+                return reduction.result;
+            }
+
+            public Object combine(Object left, Object right) {
+                return operator.apply((T) left, (T) right);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public T reduce(final BinaryOperator<T> operator) {
+        Object result = run(new Job() {
+            public Object leaf(Spliterator<T> items, int offset) {
+                Reduction reduction = new Reduction(operator, NOTHING);
+                items.forEachRemaining(reduction);
+                return reduction.result;
+            }
+
+            public Object combine(Object left, Object right) {
+                if (left == NOTHING) return right;
+                if (right == NOTHING) return left;
+                return operator.apply((T) left, (T) right);
+            }
+        });
+        return result == NOTHING ? null : (T) result;
+    }
+
+    public void forEach(final Consumer<? super T> consumer) {
+        run(new Job() {
+            public Object leaf(Spliterator<T> items, int offset) {
+                items.forEachRemaining(consumer);
+                return null;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> Seq<R> toSeq(Object[] results, int count) {
+        ArrayStorage<R> storage = new ArrayStorage<R>(count);
+        for (int i = 0; i < count; i++) {
+            storage.addLast((R) results[i]);
+        }
+        return new Seq<R>(storage);
+    }
+
+    private Object run(Job job) {
+        return pool.invoke(new Slice(job, elements, 0));
+    }
+
+    /**
+     * What to do with each slice, and how to put the results of two slices
+     * together.
+     */
+    private abstract class Job {
+        public abstract Object leaf(Spliterator<T> items, int offset);
+
+        public Object combine(Object left, Object right) {
+            return null;
+        }
+    }
+
+    /**
+     * The elements of a spliterator, split in half until it's small enough.
+     * Each half knows its offset, the index of its first element.
+     */
+    @SuppressWarnings("serial")
+    private class Slice extends RecursiveTask<Object> {
+        private final Job job;
+        private final Spliterator<T> items;
+        private final int offset;
+
+        public Slice(Job job, Spliterator<T> items, int offset) {
+            this.job = job;
+            this.items = items;
+            this.offset = offset;
+        }
+
+        protected Object compute() {
+            if (items.estimateSize() <= sliceSize) return job.leaf(items, offset);
+
+            Spliterator<T> prefix = items.trySplit();
+            if (prefix == null) return job.leaf(items, offset);
+
+            Slice left = new Slice(job, prefix, offset);
+            Slice right = new Slice(job, items, offset + (int) prefix.estimateSize());
+            left.fork();
+            Object rightResult = right.compute();
+            return job.combine(left.join(), rightResult);
+        }
+    }
+
+    /**
+     * Folds the elements of one slice.
+     */
+    private class Reduction implements Consumer<T> {
+        private final BinaryOperator<T> operator;
+        private Object result;
+
+        public Reduction(BinaryOperator<T> operator, Object start) {
+            this.operator = operator;
+            this.result = start;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void accept(T element) {
+            result = result == NOTHING ? element : operator.apply((T) result, element);
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package ginger;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A Seq that never changes: {@link #append(Object)}, {@link #set(int, Object)}
+ * and friends return a new PersistentSeq, the old one stays as it was.
+ * <p>
+ * Both versions share everything but the O(log n) nodes that changed, so
+ * there is no copying. Elements live in small arrays (the leaves) of a
+ * balanced binary tree, where each node knows how many elements it has. Get,
+ * set, append, prepend, concat, subList and remove are all O(log n).
+ * </p>
+ * <p>
+ * Nothing changes after it's built, so it can go from thread to thread with no
+ * locks and no defensive copies. The elements themselves, of course, are your
+ * problem.
+ * </p>
+ */
+public final class PersistentSeq<T> implements Iterable<T> {
+    /**
+     * Elements in a leaf, at most. Small enough to copy a leaf for each change,
+     * big enough to keep the tree short.
+     */
+    private static final int LEAF_SIZE = 32;
+
+    private static final PersistentSeq<Object> EMPTY = new PersistentSeq<Object>(null);
+
+    private final Node root;
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentSeq<T> empty() {
+        return (PersistentSeq<T>) EMPTY;
+    }
+
+    @SafeVarargs
+    public static <T> PersistentSeq<T> persistent(T... elements) {
+        if (elements == null) return PersistentSeq.<T> empty().append(null);
+        // Copied, so the array never escapes (that keeps @SafeVarargs honest)
+        List<T> list = new ArrayList<T>(elements.length);
+        for (T element : elements) {
+            list.add(element);
+        }
+        return from(list);
+    }
+
+    /**
+     * The elements, in order, in O(n).
+     */
+    public static <T> PersistentSeq<T> from(Iterable<? extends T> elements) {
+        List<Node> leaves = new ArrayList<Node>();
+        List<Object> leaf = new ArrayList<Object>(LEAF_SIZE);
+        for (T element : elements) {
+            leaf.add(element);
+            if (leaf.size() == LEAF_SIZE) {
+                leaves.add(new Leaf(leaf.toArray()));
+                leaf.clear();
+            }
+        }
+        if (!leaf.isEmpty()) leaves.add(new Leaf(leaf.toArray()));
+
+        if (leaves.isEmpty()) return empty();
+        return new PersistentSeq<T>(build(leaves, 0, leaves.size()));
+    }
+
+    private PersistentSeq(Node root) {
+        this.root = root;
+    }
+
+    public int size() {
+        return root == null ? 0 : root.size;
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index, size());
+
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            if (index < branch.left.size) {
+                node = branch.left;
+            } else {
+                index -= branch.left.size;
+                node = branch.right;
+            }
+        }
+        return (T) ((Leaf) node).elements[index];
+    }
+
+    public T getFirst() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return get(0);
+    }
+
+    public T getLast() {
+        if (isEmpty()) throw new NoSuchElementException();
+        return get(size() - 1);
+    }
+
+    /**
+     * A new version with the element at <em>index</em> replaced.
+     */
+    public PersistentSeq<T> set(int index, T element) {
+        checkIndex(index, size());
+        return new PersistentSeq<T>(set(root, index, element));
+    }
+
+    /**
+     * A new version with the element at the end.
+     */
+    public PersistentSeq<T> append(T element) {
+        if (root == null) return new PersistentSeq<T>(new Leaf(new Object[] { element }));
+        return new PersistentSeq<T>(append(root, element));
+    }
+
+    /**
+     * A new version with the element at the beginning.
+     */
+    public PersistentSeq<T> prepend(T element) {
+        if (root == null) return new PersistentSeq<T>(new Leaf(new Object[] { element }));
+        return new PersistentSeq<T>(prepend(root, element));
+    }
+
+    /**
+     * A new version with the elements of <em>other</em> after these ones.
+     */
+    public PersistentSeq<T> concat(PersistentSeq<? extends T> other) {
+        if (other.isEmpty()) return this;
+        if (isEmpty()) return cast(other);
+        return new PersistentSeq<T>(join(root, other.root));
+    }
+
+    /**
+     * The elements from <em>fromIndex</em> (inclusive) to <em>toIndex</em>
+     * (exclusive), as a PersistentSeq of its own.
+     */
+    public PersistentSeq<T> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size());
+        }
+        if (fromIndex == 0 && toIndex == size()) return this;
+
+        Node head = split(root, toIndex)[0];
+        return new PersistentSeq<T>(split(head, fromIndex)[1]);
+    }
+
+    /**
+     * A new version without the element at <em>index</em>.
+     */
+    public PersistentSeq<T> remove(int index) {
+        checkIndex(index, size());
+        Node[] halves = split(root, index);
+        return new PersistentSeq<T>(join(halves[0], split(halves[1], 1)[1]));
+    }
+
+    // Conversions
+
+    /**
+     * A mutable copy.
+     */
+    public Seq<T> toSeq() {
+        return new Seq<T>(asList());
+    }
+
+    /**
+     * A read only List, with no copying.
+     */
+    public List<T> asList() {
+        return new AbstractList<T>() {
+            public T get(int index) {
+                return PersistentSeq.this.get(index);
+            }
+
+            public int size() {
+                return PersistentSeq.this.size();
+            }
+
+            public Iterator<T> iterator() {
+                return PersistentSeq.this.iterator();
+            }
+        };
+    }
+
+    public Iterator<T> iterator() {
+        return new LeafIterator<T>(root);
+    }
+
+    public String join() {
+        return join(", ");
+    }
+
+    public String join(CharSequence separator) {
+        StringBuilder result = new StringBuilder();
+        boolean first = true;
+        for (T element : this) {
+            if (!first) result.append(separator);
+            result.append(String.valueOf(element));
+            first = false;
+        }
+        return result.toString();
+    }
+
+    public boolean equals(Object other) {
+        if (other == this) return true;
+        if (!(other instanceof PersistentSeq)) return false;
+        return asList().equals(((PersistentSeq<?>) other).asList());
+    }
+
+    public int hashCode() {
+        return asList().hashCode();
+    }
+
+    public String toString() {
+        return "[" + join() + "]";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> PersistentSeq<T> cast(PersistentSeq<? extends T> seq) {
+        // Can't be written to, so a Seq of Integers is also a Seq of Numbers
+        return (PersistentSeq<T>) seq;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    // The tree
+
+    private static Node build(List<Node> leaves, int from, int to) {
+        if (to - from == 1) return leaves.get(from);
+
+        int middle = (from + to) >>> 1;
+        return new Branch(build(leaves, from, middle), build(leaves, middle, to));
+    }
+
+    private static Node set(Node node, int index, Object element) {
+        if (node instanceof Leaf) {
+            Object[] elements = ((Leaf) node).elements.clone();
+            elements[index] = element;
+            return new Leaf(elements);
+        }
+
+        Branch branch = (Branch) node;
+        if (index < branch.left.size) return new Branch(set(branch.left, index, element), branch.right);
+        return new Branch(branch.left, set(branch.right, index - branch.left.size, element));
+    }
+
+    private static Node append(Node node, Object element) {
+        if (node instanceof Leaf) {
+            Object[] elements = ((Leaf) node).elements;
+            if (elements.length == LEAF_SIZE) return join(node, new Leaf(new Object[] { element }));
+
+            Object[] appended = Arrays.copyOf(elements, elements.length + 1);
+            appended[elements.length] = element;
+            return new Leaf(appended);
+        }
+
+        Branch branch = (Branch) node;
+        return balance(branch.left, append(branch.right, element));
+    }
+
+    private static Node prepend(Node node, Object element) {
+        if (node instanceof Leaf) {
+            Object[] elements = ((Leaf) node).elements;
+            if (elements.length == LEAF_SIZE) return join(new Leaf(new Object[] { element }), node);
+
+            Object[] prepended = new Object[elements.length + 1];
+            prepended[0] = element;
+            System.arraycopy(elements, 0, prepended, 1, elements.length);
+            return new Leaf(prepended);
+        }
+
+        Branch branch = (Branch) node;
+        return balance(prepend(branch.left, element), branch.right);
+    }
+
+    /**
+     * All elements of <em>left</em>, then all of <em>right</em>, going down
+     * the taller tree until the heights match. Either can be null.
+     */
+    private static Node join(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+
+        if (left instanceof Leaf && right instanceof Leaf && left.size + right.size <= LEAF_SIZE) {
+            Object[] elements = Arrays.copyOf(((Leaf) left).elements, left.size + right.size);
+            System.arraycopy(((Leaf) right).elements, 0, elements, left.size, right.size);
+            return new Leaf(elements);
+        }
+
+        if (left.height > right.height + 1) {
+            Branch branch = (Branch) left;
+            return balance(branch.left, join(branch.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch branch = (Branch) right;
+            return balance(join(left, branch.left), branch.right);
+        }
+        return new Branch(left, right);
+    }
+
+    /**
+     * A branch with both sides, rotating (just like an AVL tree) if one is
+     * taller than the other by 2.
+     */
+    private static Node balance(Node left, Node right) {
+        if (left.height > right.height + 1) {
+            Branch branch = (Branch) left;
+            if (branch.left.height >= branch.right.height) {
+                return new Branch(branch.left, new Branch(branch.right, right));
+            }
+            Branch inner = (Branch) branch.right;
+            return new Branch(new Branch(branch.left, inner.left), new Branch(inner.right, right));
+        }
+        if (right.height > left.height + 1) {
+            Branch branch = (Branch) right;
+            if (branch.right.height >= branch.left.height) {
+                return new Branch(new Branch(left, branch.left), branch.right);
+            }
+            Branch inner = (Branch) branch.left;
+            return new Branch(new Branch(left, inner.left), new Branch(inner.right, branch.right));
+        }
+        return new Branch(left, right);
+    }
+
+    /**
+     * The first <em>index</em> elements and the others, as two trees (null
+     * when empty).
+     */
+    private static Node[] split(Node node, int index) {
+        if (index == 0) return new Node[] { null, node };
+        if (index == node.size) return new Node[] { node, null };
+
+        if (node instanceof Leaf) {
+            Object[] elements = ((Leaf) node).elements;
+            return new Node[] { new Leaf(Arrays.copyOfRange(elements, 0, index)),
+                    new Leaf(Arrays.copyOfRange(elements, index, elements.length)) };
+        }
+
+        Branch branch = (Branch) node;
+        if (index < branch.left.size) {
+            Node[] halves = split(branch.left, index);
+            return new Node[] { halves[0], join(halves[1], branch.right) };
+        }
+        Node[] halves = split(branch.right, index - branch.left.size);
+        return new Node[] { join(branch.left, halves[0]), halves[1] };
+    }
+
+    private static abstract class Node {
+        final int size;
+        final int height;
+
+        Node(int size, int height) {
+            this.size = size;
+            this.height = height;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] elements;
+
+        Leaf(Object[] elements) {
+            super(elements.length, 0);
+            this.elements = elements;
+        }
+    }
+
+    private static final class Branch extends Node {
+        final Node left;
+        final Node right;
+
+        Branch(Node left, Node right) {
+            super(left.size + right.size, Math.max(left.height, right.height) + 1);
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /**
+     * Goes through the leaves from left to right, keeping the branches still
+     * to visit in a stack.
+     */
+    private static class LeafIterator<T> implements Iterator<T> {
+        private final Deque<Node> pending = new ArrayDeque<Node>();
+        private Object[] leaf;
+        private int index;
+
+        public LeafIterator(Node root) {
+            if (root != null) pending.push(root);
+            nextLeaf();
+        }
+
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (leaf == null) throw new NoSuchElementException();
+
+            T result = (T) leaf[index++];
+            if (index == leaf.length) nextLeaf();
+            return result;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("PersistentSeqs never change");
+        }
+
+        private void nextLeaf() {
+            leaf = null;
+            index = 0;
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                if (node instanceof Leaf) {
+                    leaf = ((Leaf) node).elements;
+                    return;
+                }
+                pending.push(((Branch) node).right);
+                pending.push(((Branch) node).left);
+            }
+        }
+    }
+}
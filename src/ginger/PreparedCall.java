@@ -0,0 +1,481 @@
+package ginger;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import ginger.ducktype.Invoker;
+import ginger.ducktype.TargetException;
+import ginger.ducktype.VarargsInvoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * A method already found by DuckType, ready to be called on any object of the
+ * type it was prepared for.
+ * <p>
+ * Get one with {@link DuckType#prepare(Class, CharSequence, Class...)}. There
+ * is no lookup, no cache and no argument type checking when calling it, that's
+ * all done once when it's prepared. It's immutable, so it's safe to share it
+ * between threads.
+ * </p>
+ * <p>
+ * It keeps the invocation engine in use when it was prepared, even if you
+ * change the engine in DuckType later.
+ * </p>
+ * <p>
+ * For hot loops over numbers, there are <em>invokeInt</em>,
+ * <em>invokeLong</em>, <em>invokeDouble</em> and <em>invokeBoolean</em>.
+ * They return primitives and take a primitive argument without boxing
+ * anything, so calling them makes no garbage at all. They go through a method
+ * handle typed for that exact shape, built the first time it's used.
+ * </p>
+ */
+public class PreparedCall {
+    private static final int RETURN_INT = 0;
+    private static final int RETURN_LONG = 1;
+    private static final int RETURN_DOUBLE = 2;
+    private static final int RETURN_BOOLEAN = 3;
+    private static final Class<?>[] returnTypes = { int.class, long.class, double.class, boolean.class };
+
+    private static final int NO_ARGUMENT = 0;
+    private static final int INT_ARGUMENT = 1;
+    private static final int LONG_ARGUMENT = 2;
+    private static final int DOUBLE_ARGUMENT = 3;
+    private static final int OBJECT_ARGUMENTS = 4;
+    private static final Class<?>[] argumentTypes = { null, int.class, long.class, double.class, null };
+
+    private final Method method;
+    private final Invoker invoker;
+    private final MethodHandle direct;
+    // Handles are immutable, so a race here only means building one twice
+    private final MethodHandle[] typed = new MethodHandle[returnTypes.length * argumentTypes.length];
+
+    /**
+     * @param direct
+     *            A handle straight to the method, taking the target even if
+     *            the method is static.
+     */
+    PreparedCall(Method method, Invoker invoker, MethodHandle direct) {
+        this.method = method;
+        this.invoker = invoker;
+        // Tells what the method throws from what the adaptation throws
+        this.direct = TargetException.marking(direct);
+    }
+
+    /**
+     * Calls the prepared method on the target.
+     * 
+     * @param <T>
+     *            Type of return value (this <em>can</em> throws a
+     *            {@link ClassCastException}).
+     * @param target
+     *            The object to call the method on. It must be of the type the
+     *            method was prepared for.
+     * @param arguments
+     *            The method arguments, if any.
+     * @return The return value of the method or null if the method returns
+     *         void or the target is null.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T invoke(Object target, Object... arguments) {
+
+        // Guard clause
+        if (target == null) return null;
+
+        try {
+
+            return (T) invoker.invoke(target, arguments);
+
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Calls the prepared method on the target, returning an int without boxing
+     * it. The method must return an int, a primitive that widens to it or a
+     * wrapper of those.
+     * 
+     * @throws NullPointerException
+     *             If the target is null, as there is no int to return.
+     */
+    public int invokeInt(Object target) {
+        MethodHandle handle = handle(RETURN_INT, NO_ARGUMENT, target);
+        try {
+
+            return (int) handle.invokeExact(target);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeInt(Object)}, passing an int without boxing it.
+     */
+    public int invokeInt(Object target, int argument) {
+        MethodHandle handle = handle(RETURN_INT, INT_ARGUMENT, target);
+        try {
+
+            return (int) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeInt(Object)}, passing a long without boxing it.
+     */
+    public int invokeInt(Object target, long argument) {
+        MethodHandle handle = handle(RETURN_INT, LONG_ARGUMENT, target);
+        try {
+
+            return (int) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeInt(Object)}, passing a double without boxing it.
+     */
+    public int invokeInt(Object target, double argument) {
+        MethodHandle handle = handle(RETURN_INT, DOUBLE_ARGUMENT, target);
+        try {
+
+            return (int) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeInt(Object)}, with any arguments. Only the return
+     * value escapes boxing.
+     */
+    public int invokeInt(Object target, Object... arguments) {
+        MethodHandle handle = handle(RETURN_INT, OBJECT_ARGUMENTS, target);
+        try {
+
+            return (int) handle.invokeExact(target, arguments);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Calls the prepared method on the target, returning a long without boxing
+     * it. The method must return a long, a primitive that widens to it or a
+     * wrapper of those.
+     * 
+     * @throws NullPointerException
+     *             If the target is null, as there is no long to return.
+     */
+    public long invokeLong(Object target) {
+        MethodHandle handle = handle(RETURN_LONG, NO_ARGUMENT, target);
+        try {
+
+            return (long) handle.invokeExact(target);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeLong(Object)}, passing an int without boxing it.
+     */
+    public long invokeLong(Object target, int argument) {
+        MethodHandle handle = handle(RETURN_LONG, INT_ARGUMENT, target);
+        try {
+
+            return (long) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeLong(Object)}, passing a long without boxing it.
+     */
+    public long invokeLong(Object target, long argument) {
+        MethodHandle handle = handle(RETURN_LONG, LONG_ARGUMENT, target);
+        try {
+
+            return (long) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeLong(Object)}, passing a double without boxing it.
+     */
+    public long invokeLong(Object target, double argument) {
+        MethodHandle handle = handle(RETURN_LONG, DOUBLE_ARGUMENT, target);
+        try {
+
+            return (long) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeLong(Object)}, with any arguments. Only the return
+     * value escapes boxing.
+     */
+    public long invokeLong(Object target, Object... arguments) {
+        MethodHandle handle = handle(RETURN_LONG, OBJECT_ARGUMENTS, target);
+        try {
+
+            return (long) handle.invokeExact(target, arguments);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Calls the prepared method on the target, returning a double without boxing
+     * it. The method must return a double, a primitive that widens to it or a
+     * wrapper of those.
+     * 
+     * @throws NullPointerException
+     *             If the target is null, as there is no double to return.
+     */
+    public double invokeDouble(Object target) {
+        MethodHandle handle = handle(RETURN_DOUBLE, NO_ARGUMENT, target);
+        try {
+
+            return (double) handle.invokeExact(target);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeDouble(Object)}, passing an int without boxing it.
+     */
+    public double invokeDouble(Object target, int argument) {
+        MethodHandle handle = handle(RETURN_DOUBLE, INT_ARGUMENT, target);
+        try {
+
+            return (double) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeDouble(Object)}, passing a long without boxing it.
+     */
+    public double invokeDouble(Object target, long argument) {
+        MethodHandle handle = handle(RETURN_DOUBLE, LONG_ARGUMENT, target);
+        try {
+
+            return (double) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeDouble(Object)}, passing a double without boxing it.
+     */
+    public double invokeDouble(Object target, double argument) {
+        MethodHandle handle = handle(RETURN_DOUBLE, DOUBLE_ARGUMENT, target);
+        try {
+
+            return (double) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeDouble(Object)}, with any arguments. Only the return
+     * value escapes boxing.
+     */
+    public double invokeDouble(Object target, Object... arguments) {
+        MethodHandle handle = handle(RETURN_DOUBLE, OBJECT_ARGUMENTS, target);
+        try {
+
+            return (double) handle.invokeExact(target, arguments);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Calls the prepared method on the target, returning a boolean without boxing
+     * it. The method must return a boolean, a primitive that widens to it or a
+     * wrapper of those.
+     * 
+     * @throws NullPointerException
+     *             If the target is null, as there is no boolean to return.
+     */
+    public boolean invokeBoolean(Object target) {
+        MethodHandle handle = handle(RETURN_BOOLEAN, NO_ARGUMENT, target);
+        try {
+
+            return (boolean) handle.invokeExact(target);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeBoolean(Object)}, passing an int without boxing it.
+     */
+    public boolean invokeBoolean(Object target, int argument) {
+        MethodHandle handle = handle(RETURN_BOOLEAN, INT_ARGUMENT, target);
+        try {
+
+            return (boolean) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeBoolean(Object)}, passing a long without boxing it.
+     */
+    public boolean invokeBoolean(Object target, long argument) {
+        MethodHandle handle = handle(RETURN_BOOLEAN, LONG_ARGUMENT, target);
+        try {
+
+            return (boolean) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeBoolean(Object)}, passing a double without boxing it.
+     */
+    public boolean invokeBoolean(Object target, double argument) {
+        MethodHandle handle = handle(RETURN_BOOLEAN, DOUBLE_ARGUMENT, target);
+        try {
+
+            return (boolean) handle.invokeExact(target, argument);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as {@link #invokeBoolean(Object)}, with any arguments. Only the return
+     * value escapes boxing.
+     */
+    public boolean invokeBoolean(Object target, Object... arguments) {
+        MethodHandle handle = handle(RETURN_BOOLEAN, OBJECT_ARGUMENTS, target);
+        try {
+
+            return (boolean) handle.invokeExact(target, arguments);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * The method that will be called.
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    public String toString() {
+        return "PreparedCall(" + method + ")";
+    }
+
+    /**
+     * Same as {@link #invoke(Object, Object...)}: what the method throws is
+     * wrapped, arguments that don't fit are illegal and errors go as they
+     * are.
+     */
+    private RuntimeException failure(Throwable e) {
+        if (e instanceof TargetException) return new RuntimeException(new InvocationTargetException(e.getCause()));
+        if (e instanceof Error) throw (Error) e;
+
+        if (e instanceof ClassCastException || e instanceof NullPointerException
+                || e instanceof WrongMethodTypeException) {
+            return new IllegalArgumentException("argument type mismatch", e);
+        }
+        if (e instanceof RuntimeException) return (RuntimeException) e;
+        return new RuntimeException(new InvocationTargetException(e));
+    }
+
+    private MethodHandle handle(int returnKind, int argumentKind, Object target) {
+        if (target == null) throw new NullPointerException("Can't call " + method + " on null");
+
+        int index = returnKind * argumentTypes.length + argumentKind;
+        MethodHandle result = typed[index];
+
+        // First time with this shape, adapt it and remember
+        if (result == null) {
+            result = adapt(returnTypes[returnKind], argumentKind);
+            typed[index] = result;
+        }
+        return result;
+    }
+
+    private MethodHandle adapt(Class<?> returnType, int argumentKind) {
+        int arity = method.getParameterTypes().length;
+        MethodType type = methodType(returnType, Object.class);
+
+        try {
+
+            if (argumentKind == OBJECT_ARGUMENTS) {
+                MethodHandle result = direct.asType(type.appendParameterTypes(MethodType.genericMethodType(arity)
+                                                                                        .parameterList()))
+                                            .asSpreader(Object[].class, arity);
+
+                // Any number of arguments, so they are packed on each call
+                if (method.isVarArgs()) {
+                    result = MethodHandles.filterArguments(result, 1, VarargsInvoker.packer(method));
+                }
+                return result;
+            }
+
+            int count = argumentKind == NO_ARGUMENT ? 0 : 1;
+            MethodHandle handle = direct;
+
+            // Here we know how many arguments go to the varargs array
+            if (method.isVarArgs() && count >= arity - 1) {
+                Class<?> arrayType = method.getParameterTypes()[arity - 1];
+                handle = handle.asCollector(arrayType, count - (arity - 1));
+            }
+
+            if (argumentKind == NO_ARGUMENT) return handle.asType(type);
+            return handle.asType(type.appendParameterTypes(argumentTypes[argumentKind]));
+
+        } catch (WrongMethodTypeException e) {
+            throw new IllegalArgumentException("Can't call " + method + " returning " + returnType
+                    + (argumentKind == NO_ARGUMENT ? " with no arguments" : ""), e);
+        }
+    }
+}
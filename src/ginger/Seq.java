@@ -1,7 +1,11 @@
 package ginger;
 
 import ginger.Seq.Pair;
+import ginger.seq.ArrayStorage;
+import ginger.seq.Pipeline;
+import ginger.seq.Storage;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Deque;
@@ -10,27 +14,70 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
-
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * A List and a Deque at the same time, with some sugar.
+ * <p>
+ * Elements are kept in a {@link Storage}, an {@link ArrayStorage} unless you
+ * choose another one with {@link #Seq(Storage)}.
+ * </p>
+ */
 public class Seq<T> implements List<T>, Deque<T> {
 
-    private LinkedList<T> objects;
+    private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    private Storage<T> objects;
 
     public static <T> Seq<T> s(T... objects) {
         return new Seq<T>(objects);
     }
 
     public Seq() {
-        this.objects = new LinkedList<T>();
+        this.objects = new ArrayStorage<T>();
     }
 
     public Seq(Collection<T> objects) {
-        this.objects = new LinkedList<T>(objects);
+        this.objects = new ArrayStorage<T>(objects);
+    }
+
+    /**
+     * A Seq backed by the storage given, like a
+     * {@link ginger.seq.LinkedStorage}. The storage is used as it is, not
+     * copied.
+     */
+    public Seq(Storage<T> storage) {
+        this.objects = storage;
     }
 
     public Seq(T... objects) {
         this(asList(objects));
     }
 
+    /**
+     * Runs the parallel operations (like {@link #parallelMap(Function)}) in
+     * the pool given, instead of {@link ForkJoinPool#commonPool()}. Good for
+     * keeping long computations away from everything else using the common
+     * pool.
+     */
+    public static void usePool(ForkJoinPool pool) {
+        if (pool == null) throw new IllegalArgumentException("The pool can't be null");
+        Seq.pool = pool;
+    }
+
+    public static ForkJoinPool getPool() {
+        return pool;
+    }
+
     /*
      * We can't create a simple list if we receive a "null" parameter. Instead
      * of an array with a "null" element, it passes the "null" itself (dumb!),
@@ -80,14 +127,15 @@ public class Seq<T> implements List<T>, Deque<T> {
     }
 
     public Seq<T> removeNullsAndBlanks() {
-        LinkedList<T> result = new LinkedList<T>();
+        List<T> result = new ArrayList<T>();
         for (T element : objects) {
             if (element == null) continue;
             if (element.toString().trim().equals("")) continue;
 
             result.add(element);
         }
-        objects = result;
+        objects.clear();
+        objects.addAll(result);
         return this;
     }
     
@@ -107,6 +155,131 @@ public class Seq<T> implements List<T>, Deque<T> {
         return this;
     }
 
+    /**
+     * Calls the method on every element, returning the results. See
+     * {@link DuckType#callAll(Iterable, CharSequence, Object...)}.
+     */
+    public <R> Seq<R> invokeEach(CharSequence methodName, Object... arguments) {
+        return DuckType.callAll(this, methodName, arguments);
+    }
+
+    /**
+     * Same as {@link #invokeEach(CharSequence, Object...)}, but in parallel.
+     * See {@link DuckType#callAllInParallel(Iterable, CharSequence, Object...)}.
+     */
+    public <R> Seq<R> invokeEachInParallel(CharSequence methodName, Object... arguments) {
+        return DuckType.callAllInParallel(this, methodName, arguments);
+    }
+
+    // Lazy operations, nothing runs until a terminal operation of the Pipeline
+
+    /**
+     * All elements, as a {@link Pipeline}.
+     */
+    public Pipeline<T> lazy() {
+        return Pipeline.from(this);
+    }
+
+    public <R> Pipeline<R> map(Function<? super T, ? extends R> function) {
+        return lazy().map(function);
+    }
+
+    public Pipeline<T> filter(Predicate<? super T> predicate) {
+        return lazy().filter(predicate);
+    }
+
+    public <R> Pipeline<R> flatMap(Function<? super T, ? extends Iterable<? extends R>> function) {
+        return lazy().flatMap(function);
+    }
+
+    public Pipeline<T> take(int count) {
+        return lazy().take(count);
+    }
+
+    public Pipeline<T> drop(int count) {
+        return lazy().drop(count);
+    }
+
+    public Pipeline<T> takeWhile(Predicate<? super T> predicate) {
+        return lazy().takeWhile(predicate);
+    }
+
+    public Pipeline<T> distinct() {
+        return lazy().distinct();
+    }
+
+    // Parallel operations, in the pool chosen with usePool
+    // The Seq must not change while they run
+
+    /**
+     * Same as {@link #map(Function)}, but in parallel, right away. The results
+     * keep the order of the elements.
+     */
+    public <R> Seq<R> parallelMap(Function<? super T, ? extends R> function) {
+        return parallel().map(function);
+    }
+
+    /**
+     * Same as {@link #filter(Predicate)}, but in parallel, right away. The
+     * elements kept stay in order.
+     */
+    public Seq<T> parallelFilter(Predicate<? super T> predicate) {
+        return parallel().filter(predicate);
+    }
+
+    /**
+     * Combines all elements in parallel, so the operator must be associative
+     * and <em>identity</em> must really be an identity for it (like 0 for +).
+     * Each slice of the elements starts from it.
+     */
+    public T parallelReduce(T identity, BinaryOperator<T> operator) {
+        return parallel().reduce(identity, operator);
+    }
+
+    /**
+     * Same as {@link #parallelReduce(Object, BinaryOperator)}, with no
+     * identity. Null if there are no elements.
+     */
+    public T parallelReduce(BinaryOperator<T> operator) {
+        return parallel().reduce(operator);
+    }
+
+    /**
+     * Gives each element to the consumer, in parallel, in no particular order.
+     */
+    public void parallelForEach(Consumer<? super T> consumer) {
+        parallel().forEach(consumer);
+    }
+
+    private ParallelOperations<T> parallel() {
+        // Linked storages can't split well, so they work on a copy
+        Spliterator<T> elements = objects instanceof RandomAccess ? spliterator()
+                : new ArrayStorage<T>(objects).spliterator();
+        return new ParallelOperations<T>(pool, elements);
+    }
+
+    /**
+     * A copy that never changes, safe to share between threads. See
+     * {@link PersistentSeq}.
+     */
+    public PersistentSeq<T> toPersistent() {
+        return PersistentSeq.from(objects);
+    }
+
+    // Primitive conversions, boxing nothing (unless the function does)
+
+    public IntSeq mapToInt(ToIntFunction<? super T> function) {
+        return IntSeq.ints(this, function);
+    }
+
+    public LongSeq mapToLong(ToLongFunction<? super T> function) {
+        return LongSeq.longs(this, function);
+    }
+
+    public DoubleSeq mapToDouble(ToDoubleFunction<? super T> function) {
+        return DoubleSeq.doubles(this, function);
+    }
+
     public <V> Seq<Pair<T, V>> combinedWith(Seq<V> other) {
         
         return null;
@@ -145,7 +318,7 @@ public class Seq<T> implements List<T>, Deque<T> {
     }
 
     public Object clone() {
-        return objects.clone();
+        return new Seq<T>(objects.copy());
     }
 
     public boolean contains(Object o) {
@@ -296,6 +469,15 @@ public class Seq<T> implements List<T>, Deque<T> {
         return objects.size();
     }
 
+    /**
+     * Balanced halves if the storage is indexed (the default), as every
+     * {@link RandomAccess} list splits. So {@link #parallelStream()} scales
+     * too.
+     */
+    public Spliterator<T> spliterator() {
+        return objects.spliterator();
+    }
+
     public List<T> subList(int fromIndex, int toIndex) {
         return objects.subList(fromIndex, toIndex);
     }
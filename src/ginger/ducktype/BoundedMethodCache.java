@@ -0,0 +1,349 @@
+package ginger.ducktype;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Method cache with a maximum size, for when the other caches could grow
+ * forever (using DuckType on classes provided by your users, for example).
+ * <p>
+ * When it's full, the least recently used method is the candidate to leave.
+ * But it only leaves if the newcomer was asked for more often than it, recently
+ * (that's the <em>TinyLFU</em> policy). So, a burst of methods used once
+ * doesn't throw away the ones we use all the time. The frequencies are
+ * estimated in a fixed amount of memory, see {@link FrequencySketch}.
+ * </p>
+ * <p>
+ * Optionally, methods not used for some time expire and leave the cache.
+ * </p>
+ * <p>
+ * Looking for a method takes no lock and allocates nothing, hit or miss, just
+ * like {@link IdentityMethodCache}. Hits and misses are written down in small
+ * buffers (one set per few threads, so they don't fight over them), and
+ * whoever gets the lock next replays the buffers into the policy. If a buffer
+ * fills up while the lock is busy, some of it is forgotten: the frequencies get
+ * a bit less precise, but readers never wait. Only adding methods and expiring
+ * them take the lock.
+ * </p>
+ */
+public class BoundedMethodCache implements MethodCache {
+    // Both must be powers of two
+    private static final int BUFFER_SIZE = 64;
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+    private static final int MAXIMUM_STRIPES = 16;
+
+    private final Map<Class<?>, MethodTable<Entry>> tables = new ConcurrentHashMap<Class<?>, MethodTable<Entry>>();
+    private final Stripe[] stripes = newStripes();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Guarded by the lock
+    private final Map<Signature, Entry> order = new LinkedHashMap<Signature, Entry>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+
+    private final int maximumSize;
+    private final long expireAfterAccessNanos;
+    private final StatsCounter stats = new StatsCounter();
+
+    /**
+     * A cache with up to <em>maximumSize</em> methods. Methods never expire.
+     */
+    public BoundedMethodCache(int maximumSize) {
+        this(maximumSize, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * A cache with up to <em>maximumSize</em> methods. Methods not used after
+     * <em>expireAfterAccess</em> leave the cache (zero means never).
+     */
+    public BoundedMethodCache(int maximumSize, long expireAfterAccess, TimeUnit unit) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        if (expireAfterAccess < 0) throw new IllegalArgumentException("Expiration can't be negative: "
+                + expireAfterAccess);
+
+        this.maximumSize = maximumSize;
+        this.expireAfterAccessNanos = unit.toNanos(expireAfterAccess);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void put(Method method, Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        Signature signature = new Signature(objectType, methodName, argumentTypes);
+        Entry entry = new Entry(signature, method, now());
+
+        lock.lock();
+        try {
+            drain();
+
+            if (order.containsKey(signature) || order.size() < maximumSize) {
+                add(entry);
+                return;
+            }
+
+            // Full. The newcomer must be more popular than the one leaving.
+            Iterator<Entry> eldest = order.values().iterator();
+            Entry victim = eldest.next();
+            if (sketch.frequency(signature.hashCode()) <= sketch.frequency(victim.signature.hashCode())) return;
+
+            remove(victim);
+            stats.recordEviction();
+            add(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Method get(Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        MethodTable<Entry> table = tables.get(objectType);
+        Entry entry = table == null ? null : table.find(methodName, argumentTypes);
+
+        if (entry == null) {
+            recordMiss(Signature.hashCodeOf(objectType, methodName, argumentTypes));
+            stats.recordMiss();
+            return null;
+        }
+
+        if (expireAfterAccessNanos > 0) {
+            long now = System.nanoTime();
+            if (now - entry.lastAccess >= expireAfterAccessNanos) {
+                expire(entry);
+                stats.recordMiss();
+                return null;
+            }
+            entry.lastAccess = now;
+        }
+
+        recordRead(entry);
+        stats.recordHit();
+        return entry.method;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            drain();
+            tables.clear();
+            order.clear();
+            size.set(0);
+            stats.reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int hitCount() {
+        return stats.hitCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int missesCount() {
+        return stats.missCount();
+    }
+
+    /**
+     * How many methods left the cache, because it was full or because they
+     * expired.
+     */
+    public int evictionCount() {
+        return stats.evictionCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void recordLoad(long loadTime) {
+        stats.recordLoad(loadTime);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public MethodCacheStats stats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Set<Signature> signatures() {
+        lock.lock();
+        try {
+            return new HashSet<Signature>(order.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Writes the hit down, replaying the buffers if this one is full and nobody
+     * else is busy with the policy.
+     */
+    private void recordRead(Entry entry) {
+        Stripe stripe = stripe();
+        int index = stripe.readCount.getAndIncrement() & BUFFER_MASK;
+        stripe.reads.lazySet(index, entry);
+
+        if (index == BUFFER_MASK) tryToDrain();
+    }
+
+    /**
+     * Same as {@link #recordRead(Entry)}, but all we have is the hash code of
+     * the missing signature. That's all the sketch needs.
+     */
+    private void recordMiss(int hashCode) {
+        Stripe stripe = stripe();
+        int index = stripe.missCount.getAndIncrement() & BUFFER_MASK;
+        // Zero means empty, so the high bits are never zero
+        stripe.misses.lazySet(index, (hashCode & 0xffffffffL) | (1L << 32));
+
+        if (index == BUFFER_MASK) tryToDrain();
+    }
+
+    private void tryToDrain() {
+        if (!lock.tryLock()) return;
+        try {
+            drain();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void expire(Entry entry) {
+        lock.lock();
+        try {
+            drain();
+            sketch.increment(entry.signature.hashCode());
+
+            // Someone else may have replaced (or expired) it already
+            if (order.get(entry.signature) == entry) {
+                remove(entry);
+                stats.recordEviction();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replays the hits and misses into the policy. Only with the lock.
+     */
+    private void drain() {
+        for (Stripe stripe : stripes) {
+            for (int i = 0; i < BUFFER_SIZE; i++) {
+                long miss = stripe.misses.getAndSet(i, 0);
+                if (miss != 0) sketch.increment((int) miss);
+
+                Entry entry = stripe.reads.getAndSet(i, null);
+                if (entry == null) continue;
+
+                sketch.increment(entry.signature.hashCode());
+                // Just to move it to the end of the line, if it's still here
+                order.get(entry.signature);
+            }
+        }
+    }
+
+    private Stripe stripe() {
+        // Same thread, same stripe. Mixed so consecutive ids don't collide.
+        long id = Thread.currentThread().getId() * 0x9e3779b97f4a7c15L;
+        return stripes[(int) (id >>> 32) & (stripes.length - 1)];
+    }
+
+    private static Stripe[] newStripes() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int count = 1;
+        while (count < processors && count < MAXIMUM_STRIPES) count <<= 1;
+
+        Stripe[] result = new Stripe[count];
+        for (int i = 0; i < count; i++) result[i] = new Stripe();
+        return result;
+    }
+
+    /**
+     * Only with the lock.
+     */
+    private void add(Entry entry) {
+        Signature signature = entry.signature;
+        if (order.put(signature, entry) == null) size.incrementAndGet();
+
+        MethodTable<Entry> table = tables.get(signature.getObjectType());
+        if (table == null) {
+            table = new MethodTable<Entry>();
+            tables.put(signature.getObjectType(), table);
+        }
+        table.put(entry, signature.getMethodName(), signature.getArgumentTypes());
+    }
+
+    /**
+     * Only with the lock.
+     */
+    private void remove(Entry entry) {
+        Signature signature = entry.signature;
+        if (order.remove(signature) != null) size.decrementAndGet();
+
+        MethodTable<Entry> table = tables.get(signature.getObjectType());
+        table.remove(signature.getMethodName(), signature.getArgumentTypes());
+        if (table.isEmpty()) tables.remove(signature.getObjectType());
+    }
+
+    private long now() {
+        // Reading the clock is not free, skip it if we don't need it
+        return expireAfterAccessNanos > 0 ? System.nanoTime() : 0;
+    }
+
+    /**
+     * The buffers some of the threads write their hits and misses to.
+     */
+    private static class Stripe {
+        private final AtomicReferenceArray<Entry> reads = new AtomicReferenceArray<Entry>(BUFFER_SIZE);
+        private final AtomicInteger readCount = new AtomicInteger();
+        private final AtomicLongArray misses = new AtomicLongArray(BUFFER_SIZE);
+        private final AtomicInteger missCount = new AtomicInteger();
+    }
+
+    private static class Entry {
+        private final Signature signature;
+        private final Method method;
+        private volatile long lastAccess;
+
+        public Entry(Signature signature, Method method, long lastAccess) {
+            this.signature = signature;
+            this.method = method;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
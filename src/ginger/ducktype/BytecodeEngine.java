@@ -0,0 +1,213 @@
+package ginger.ducktype;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Engine that generates a tiny class for each method, calling it directly.
+ * <p>
+ * Once the JIT warms up, calling a method through the generated class costs
+ * about the same as a handwritten call. The price is paid in the first call:
+ * generating and loading a class is way slower than creating a method handle.
+ * </p>
+ * <p>
+ * Classes are defined as <em>hidden classes</em> in the package (and class
+ * loader) of the class that declares the method, so they go away with it. If
+ * it's not possible to define the class there, we use the package of the
+ * {@link Lookup} (that's DuckType's) when everything involved is public.
+ * Otherwise, we give up and use a method handle, just like
+ * {@link MethodHandleEngine}. Use {@link #isGenerated(Method)} to know which
+ * one you got.
+ * </p>
+ * <p>
+ * Classes from another class loader (plugins, for instance) are in another
+ * module, so we have no full privilege there and they always get a method
+ * handle.
+ * </p>
+ */
+public class BytecodeEngine implements InvocationEngine {
+    private static final String CLASS_NAME = "DuckType$DirectCall";
+
+    private final ClassValue<Map<Method, Invoker>> invokers = new ClassValue<Map<Method, Invoker>>() {
+        protected Map<Method, Invoker> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<Method, Invoker>();
+        }
+    };
+    private final Lookup lookup;
+
+    public BytecodeEngine(Lookup lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Invoker invokerFor(Method method) throws IllegalAccessException {
+        /*
+         * Invokers are kept with the class that declares the method. That way
+         * we don't hold it (and its class loader) forever.
+         */
+        Map<Method, Invoker> declaredInvokers = invokers.get(method.getDeclaringClass());
+        Invoker result = declaredInvokers.get(method);
+
+        // First time here, generate it and remember
+        if (result == null) {
+            result = newInvoker(method);
+            declaredInvokers.put(method, result);
+        }
+        return result;
+    }
+
+    private Invoker newInvoker(Method method) throws IllegalAccessException {
+        Lookup host = hostFor(method);
+        if (host == null) return fallback(method);
+
+        byte[] bytes = DirectCallWriter.write(classNameIn(host), method);
+        try {
+
+            Lookup hidden = host.defineHiddenClass(bytes, true);
+            DirectCall call = hidden.lookupClass().asSubclass(DirectCall.class).getConstructor().newInstance();
+            return new DirectInvoker(method, call);
+
+        } catch (IllegalAccessException e) {
+            return fallback(method);
+        } catch (LinkageError e) {
+            // The class doesn't fit there after all
+            return fallback(method);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * No place for a generated class, a method handle is still better than
+     * nothing.
+     */
+    private Invoker fallback(Method method) throws IllegalAccessException {
+        return MethodHandleEngine.newInvoker(lookup, method);
+    }
+
+    /**
+     * Tells if the method is called through a generated class. If not, it's
+     * called through a method handle.
+     */
+    public boolean isGenerated(Method method) throws IllegalAccessException {
+        return invokerFor(method) instanceof DirectInvoker;
+    }
+
+    /**
+     * Finds where the generated class can live, or null if there is no such
+     * place.
+     */
+    private Lookup hostFor(Method method) {
+        Class<?> owner = method.getDeclaringClass();
+
+        // Best place: side by side with the method
+        try {
+            Lookup ownerLookup = MethodHandles.privateLookupIn(owner, lookup);
+
+            // Defining a class takes full privilege, lost for other modules
+            if (ownerLookup.hasFullPrivilegeAccess() && canCall(ownerLookup, method)) return ownerLookup;
+        } catch (IllegalAccessException e) {
+            // Closed package (like "java.lang"), try the next one
+        } catch (IllegalArgumentException e) {
+            // Primitives, arrays... no place for us
+        }
+
+        // Second best: our own package, if everything is public
+        if (canCall(lookup, method)) return lookup;
+
+        return null;
+    }
+
+    /**
+     * A class defined with the lookup must be able to see and access every
+     * type the method uses.
+     */
+    private boolean canCall(Lookup host, Method method) {
+        ClassLoader loader = host.lookupClass().getClassLoader();
+
+        if (!canUse(host, loader, DirectCall.class)) return false;
+        if (!canUse(host, loader, Unboxing.class)) return false;
+        if (!canUse(host, loader, method.getDeclaringClass())) return false;
+        if (!canUse(host, loader, method.getReturnType())) return false;
+        for (Class<?> type : method.getParameterTypes()) {
+            if (!canUse(host, loader, type)) return false;
+        }
+        return true;
+    }
+
+    private boolean canUse(Lookup host, ClassLoader loader, Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) return true;
+
+        try {
+
+            host.accessClass(type);
+            return Class.forName(type.getName(), false, loader) == type;
+
+        } catch (IllegalAccessException e) {
+            return false;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    private String classNameIn(Lookup host) {
+        String packageName = host.lookupClass().getPackageName();
+        if (packageName.isEmpty()) return CLASS_NAME;
+        return packageName.replace('.', '/') + "/" + CLASS_NAME;
+    }
+
+    private static class DirectInvoker implements Invoker {
+        private final Method method;
+        private final DirectCall call;
+
+        public DirectInvoker(Method method, DirectCall call) {
+            this.method = method;
+            this.call = call;
+        }
+
+        public Object invoke(Object target, Object... arguments) throws InvocationTargetException {
+            try {
+
+                return call.call(target, arguments);
+
+            } catch (RuntimeException e) {
+                /*
+                 * The generated code has no room to check the arguments, so we
+                 * check them only when something goes wrong. If they don't
+                 * fit, that's the caller's fault, the same way reflection
+                 * (and MethodHandleEngine) tells it.
+                 */
+                if (!fits(target, arguments)) throw new IllegalArgumentException("argument type mismatch", e);
+                throw new InvocationTargetException(e);
+            } catch (Throwable e) {
+                // Same as reflection, wrap whatever comes from the method
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        private boolean fits(Object target, Object[] arguments) {
+            if (!Modifier.isStatic(method.getModifiers()) && !method.getDeclaringClass().isInstance(target)) {
+                return false;
+            }
+
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            if (arguments == null || arguments.length != parameterTypes.length) return false;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (!Unboxing.fits(parameterTypes[i], arguments[i])) return false;
+            }
+            return true;
+        }
+    }
+}
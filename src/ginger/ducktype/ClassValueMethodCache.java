@@ -0,0 +1,141 @@
+package ginger.ducktype;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Method cache that keeps the methods of each class within the class itself,
+ * using a {@link ClassValue}.
+ * <p>
+ * Every class has its own small {@link MethodTable}, found with one single
+ * {@link ClassValue#get(Class)}. The lookup time depends on how many methods
+ * we found for that class only, not on how big the cache is.
+ * </p>
+ * <p>
+ * The nice part: when a class is unloaded, its methods go away with it. Use it
+ * if your application loads and unloads classes (plugins, hot redeploy and
+ * things like that). The other caches would hold those classes and their class
+ * loaders forever.
+ * </p>
+ * <p>
+ * Careful with the argument types, though: they are kept in the table of the
+ * receiver class. Call a method of a class that never goes away (like
+ * <code>String</code>) with an argument whose class came from a plugin, and
+ * the plugin's class loader stays as long as the cache holds that method.
+ * {@link #clear()} lets it go.
+ * </p>
+ * <p>
+ * The downside is that {@link #size()} doesn't know about unloaded classes, so
+ * it's only an upper bound. Also, a {@link ClassValue} can't tell which classes
+ * have a value, so we keep them aside (weakly) for {@link #signatures()}.
+ * </p>
+ */
+public class ClassValueMethodCache implements MethodCache {
+    // Replaced all at once, so no one sees the new tables with the old classes
+    private volatile Tables tables = new Tables();
+    private final AtomicInteger size = new AtomicInteger();
+    private final StatsCounter stats = new StatsCounter();
+
+    /**
+     * {@inheritDoc}
+     */
+    public void put(Method method, Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        Tables tables = this.tables;
+        if (tables.values.get(objectType).put(method, methodName, argumentTypes)) {
+            tables.classes.add(objectType);
+            size.incrementAndGet();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Method get(Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        Method result = tables.values.get(objectType).find(methodName, argumentTypes);
+        if (result == null) {
+            stats.recordMiss();
+        } else {
+            stats.recordHit();
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * There is no way to list the classes holding a table, so we just start a
+     * new {@link ClassValue}. The old tables are collected with it.
+     * </p>
+     */
+    public void clear() {
+        tables = new Tables();
+        size.set(0);
+        stats.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int hitCount() {
+        return stats.hitCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int missesCount() {
+        return stats.missCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void recordLoad(long loadTime) {
+        stats.recordLoad(loadTime);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public MethodCacheStats stats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Set<Signature> signatures() {
+        Set<Signature> result = new HashSet<Signature>();
+        Tables tables = this.tables;
+        synchronized (tables.classes) {
+            for (Class<?> objectType : tables.classes) {
+                tables.values.get(objectType).collectSignatures(objectType, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The tables, and the classes that have one.
+     */
+    private static class Tables {
+        private final ClassValue<MethodTable<Method>> values = new ClassValue<MethodTable<Method>>() {
+            protected MethodTable<Method> computeValue(Class<?> type) {
+                return new MethodTable<Method>();
+            }
+        };
+        private final Set<Class<?>> classes = Collections.synchronizedSet(Collections
+                .newSetFromMap(new WeakHashMap<Class<?>, Boolean>()));
+    }
+}
@@ -0,0 +1,14 @@
+package ginger.ducktype;
+
+/**
+ * Implemented by the classes {@link BytecodeEngine} generates. Each one calls
+ * one single method directly, as if it was written by hand.
+ * <p>
+ * It's public only because generated classes can live in any package. You
+ * shouldn't need to implement it yourself.
+ * </p>
+ */
+public interface DirectCall {
+
+    public Object call(Object target, Object[] arguments) throws Throwable;
+}
@@ -0,0 +1,345 @@
+package ginger.ducktype;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the bytes of a class implementing {@link DirectCall} for one single
+ * method.
+ * <p>
+ * The generated code is the same javac would generate for a handwritten call:
+ * cast the target, cast (or unbox, widening it) each argument, call the method
+ * directly and box the return value. It has no branches at all, so we don't
+ * need stack map frames and we don't need a bytecode library either.
+ * </p>
+ */
+class DirectCallWriter {
+    private static final int VERSION = 52;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int ACONST_NULL = 0x01;
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int AALOAD = 0x32;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int CHECKCAST = 0xc0;
+
+    private static final Map<Class<?>, Class<?>> wrappers = new HashMap<Class<?>, Class<?>>();
+    static {
+        wrappers.put(Boolean.TYPE, Boolean.class);
+        wrappers.put(Character.TYPE, Character.class);
+        wrappers.put(Byte.TYPE, Byte.class);
+        wrappers.put(Short.TYPE, Short.class);
+        wrappers.put(Integer.TYPE, Integer.class);
+        wrappers.put(Long.TYPE, Long.class);
+        wrappers.put(Float.TYPE, Float.class);
+        wrappers.put(Double.TYPE, Double.class);
+    }
+
+    private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constants = new DataOutputStream(constantBytes);
+    private final Map<String, Integer> constantIndexes = new HashMap<String, Integer>();
+    private int constantCount = 1;
+
+    /**
+     * Writes a class named <em>className</em> (internal form, like
+     * "ginger/Foo") that calls <em>method</em>.
+     */
+    public static byte[] write(String className, Method method) {
+        try {
+
+            return new DirectCallWriter().writeClass(className, method);
+
+        } catch (IOException e) {
+            // Everything is in memory, that should never happen
+            throw new RuntimeException(e);
+        }
+    }
+
+    private byte[] writeClass(String className, Method method) throws IOException {
+        int thisClass = classConstant(className);
+        int superClass = classConstant("java/lang/Object");
+        int directCall = classConstant(internalName(DirectCall.class));
+
+        byte[] constructor = writeMethod("<init>", "()V", 1, 1, constructorCode(superClass));
+        byte[] call = writeMethod("call", "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;",
+                                  maxStack(method), 3, callCode(method));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(VERSION);
+        out.writeShort(constantCount);
+        constants.flush();
+        constantBytes.writeTo(out);
+        out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(1);
+        out.writeShort(directCall);
+        out.writeShort(0); // No fields
+        out.writeShort(2);
+        out.write(constructor);
+        out.write(call);
+        out.writeShort(0); // No attributes
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private byte[] constructorCode(int superClass) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(bytes);
+        code.writeByte(ALOAD_0);
+        code.writeByte(INVOKESPECIAL);
+        code.writeShort(methodConstant(CONSTANT_METHODREF, superClass, "<init>", "()V"));
+        code.writeByte(RETURN);
+        code.flush();
+        return bytes.toByteArray();
+    }
+
+    private byte[] callCode(Method method) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(bytes);
+        Class<?> owner = method.getDeclaringClass();
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        int ownerClass = classConstant(internalName(owner));
+
+        // The target
+        if (!isStatic) {
+            code.writeByte(ALOAD_1);
+            code.writeByte(CHECKCAST);
+            code.writeShort(ownerClass);
+        }
+
+        // The arguments
+        for (int i = 0; i < parameterTypes.length; i++) {
+            code.writeByte(ALOAD_2);
+            writePush(code, i);
+            code.writeByte(AALOAD);
+            writeFromObject(code, parameterTypes[i]);
+        }
+
+        // The call itself
+        int kind = owner.isInterface() ? CONSTANT_INTERFACE_METHODREF : CONSTANT_METHODREF;
+        int target = methodConstant(kind, ownerClass, method.getName(), descriptor(method));
+        if (isStatic) {
+            code.writeByte(INVOKESTATIC);
+            code.writeShort(target);
+        } else if (owner.isInterface()) {
+            code.writeByte(INVOKEINTERFACE);
+            code.writeShort(target);
+            code.writeByte(1 + slots(parameterTypes));
+            code.writeByte(0);
+        } else {
+            code.writeByte(INVOKEVIRTUAL);
+            code.writeShort(target);
+        }
+
+        // The return value
+        writeToObject(code, method.getReturnType());
+        code.writeByte(ARETURN);
+        code.flush();
+        return bytes.toByteArray();
+    }
+
+    private byte[] writeMethod(String name, String descriptor, int maxStack, int maxLocals, byte[] code)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(ACC_PUBLIC);
+        out.writeShort(utf8Constant(name));
+        out.writeShort(utf8Constant(descriptor));
+        out.writeShort(1);
+        out.writeShort(utf8Constant("Code"));
+        out.writeInt(2 + 2 + 4 + code.length + 2 + 2);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // No exception table
+        out.writeShort(0); // No attributes
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private void writePush(DataOutputStream code, int value) throws IOException {
+        if (value <= 5) {
+            code.writeByte(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            code.writeByte(BIPUSH);
+            code.writeByte(value);
+        } else {
+            code.writeByte(SIPUSH);
+            code.writeShort(value);
+        }
+    }
+
+    /**
+     * Converts the Object on top of the stack to the type, unboxing it if it's
+     * a primitive.
+     */
+    private void writeFromObject(DataOutputStream code, Class<?> type) throws IOException {
+        if (type == Object.class) return;
+
+        if (acceptsWidening(type)) {
+            // Other wrappers may widen to it, let Unboxing sort it out
+            code.writeByte(INVOKESTATIC);
+            code.writeShort(methodConstant(CONSTANT_METHODREF, classConstant(internalName(Unboxing.class)), "to"
+                    + Character.toUpperCase(type.getName().charAt(0)) + type.getName().substring(1),
+                    "(Ljava/lang/Object;)" + descriptor(type)));
+        } else if (type.isPrimitive()) {
+            Class<?> wrapper = wrappers.get(type);
+            int wrapperClass = classConstant(internalName(wrapper));
+            code.writeByte(CHECKCAST);
+            code.writeShort(wrapperClass);
+            code.writeByte(INVOKEVIRTUAL);
+            code.writeShort(methodConstant(CONSTANT_METHODREF, wrapperClass, type.getName() + "Value", "()"
+                    + descriptor(type)));
+        } else {
+            code.writeByte(CHECKCAST);
+            code.writeShort(classConstant(internalName(type)));
+        }
+    }
+
+    /**
+     * Nothing widens to boolean, char or byte.
+     */
+    private boolean acceptsWidening(Class<?> type) {
+        return type == Short.TYPE || type == Integer.TYPE || type == Long.TYPE || type == Float.TYPE
+                || type == Double.TYPE;
+    }
+
+    /**
+     * Converts the value on top of the stack to an Object, boxing it if it's a
+     * primitive. Void becomes null.
+     */
+    private void writeToObject(DataOutputStream code, Class<?> type) throws IOException {
+        if (type == Void.TYPE) {
+            code.writeByte(ACONST_NULL);
+        } else if (type.isPrimitive()) {
+            Class<?> wrapper = wrappers.get(type);
+            code.writeByte(INVOKESTATIC);
+            code.writeShort(methodConstant(CONSTANT_METHODREF, classConstant(internalName(wrapper)), "valueOf", "("
+                    + descriptor(type) + ")" + descriptor(wrapper)));
+        }
+    }
+
+    /**
+     * The target, the arguments and, while loading an argument, the array and
+     * the index.
+     */
+    private int maxStack(Method method) {
+        return 1 + slots(method.getParameterTypes()) + 2;
+    }
+
+    private int slots(Class<?>[] types) {
+        int result = 0;
+        for (Class<?> type : types) {
+            result += type == Long.TYPE || type == Double.TYPE ? 2 : 1;
+        }
+        return result;
+    }
+
+    private int utf8Constant(String value) throws IOException {
+        String key = "utf8|" + value;
+        Integer index = constantIndexes.get(key);
+        if (index != null) return index;
+
+        constants.writeByte(CONSTANT_UTF8);
+        constants.writeUTF(value);
+        return newConstant(key);
+    }
+
+    private int classConstant(String internalName) throws IOException {
+        int name = utf8Constant(internalName);
+        String key = "class|" + internalName;
+        Integer index = constantIndexes.get(key);
+        if (index != null) return index;
+
+        constants.writeByte(CONSTANT_CLASS);
+        constants.writeShort(name);
+        return newConstant(key);
+    }
+
+    private int methodConstant(int kind, int ownerClass, String name, String descriptor) throws IOException {
+        int nameIndex = utf8Constant(name);
+        int descriptorIndex = utf8Constant(descriptor);
+        String key = "method|" + kind + "|" + ownerClass + "|" + name + "|" + descriptor;
+        Integer index = constantIndexes.get(key);
+        if (index != null) return index;
+
+        String nameAndTypeKey = "nameAndType|" + name + "|" + descriptor;
+        Integer nameAndType = constantIndexes.get(nameAndTypeKey);
+        if (nameAndType == null) {
+            constants.writeByte(CONSTANT_NAME_AND_TYPE);
+            constants.writeShort(nameIndex);
+            constants.writeShort(descriptorIndex);
+            nameAndType = newConstant(nameAndTypeKey);
+        }
+
+        constants.writeByte(kind);
+        constants.writeShort(ownerClass);
+        constants.writeShort(nameAndType);
+        return newConstant(key);
+    }
+
+    private int newConstant(String key) {
+        int index = constantCount++;
+        constantIndexes.put(key, index);
+        return index;
+    }
+
+    private static String internalName(Class<?> type) {
+        // Arrays are referenced by their descriptors, and Class.getName() already gives it
+        return type.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Method method) {
+        StringBuilder result = new StringBuilder("(");
+        for (Class<?> type : method.getParameterTypes()) {
+            result.append(descriptor(type));
+        }
+        result.append(")");
+        result.append(descriptor(method.getReturnType()));
+        return result.toString();
+    }
+
+    private static String descriptor(Class<?> type) {
+        if (type == Void.TYPE) return "V";
+        if (type == Boolean.TYPE) return "Z";
+        if (type == Character.TYPE) return "C";
+        if (type == Byte.TYPE) return "B";
+        if (type == Short.TYPE) return "S";
+        if (type == Integer.TYPE) return "I";
+        if (type == Long.TYPE) return "J";
+        if (type == Float.TYPE) return "F";
+        if (type == Double.TYPE) return "D";
+        if (type.isArray()) return internalName(type);
+        return "L" + internalName(type) + ";";
+    }
+}
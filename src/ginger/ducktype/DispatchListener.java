@@ -0,0 +1,40 @@
+package ginger.ducktype;
+
+import java.lang.reflect.Method;
+
+/**
+ * Hears about every call DuckType makes, for tracing and profiling. See
+ * {@link DispatchStats} for a ready one.
+ * <p>
+ * Listeners are called in the thread making the call, so keep them quick and
+ * thread safe. The argument types array belongs to DuckType: copy it (or make
+ * a {@link Signature}) if you want to keep it.
+ * </p>
+ * <p>
+ * With no listener, DuckType checks one field per call and that's all.
+ * </p>
+ */
+public interface DispatchListener {
+
+    /**
+     * A method was called through DuckType.
+     * 
+     * @param lookupTime
+     *            Nanoseconds spent finding the method (cache included).
+     * @param invokeTime
+     *            Nanoseconds spent in the call itself.
+     */
+    public void methodCalled(Class<?> objectType, String methodName, Class<?>[] argumentTypes, long lookupTime,
+            long invokeTime);
+
+    /**
+     * A method was not in cache and DuckType found it the hard way.
+     * 
+     * @param method
+     *            The method found, or null if there is no such method.
+     * @param resolveTime
+     *            Nanoseconds spent finding it.
+     */
+    public void methodResolved(Class<?> objectType, String methodName, Class<?>[] argumentTypes, Method method,
+            long resolveTime);
+}
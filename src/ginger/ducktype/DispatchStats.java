@@ -0,0 +1,200 @@
+package ginger.ducktype;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link DispatchListener} that tells where DuckType spends its time: how
+ * many times each signature was called, lookup and invoke latencies, and the
+ * slowest hard-way resolutions.
+ * 
+ * <pre>
+ * DispatchStats stats = new DispatchStats();
+ * DuckType.useDispatchListener(stats);
+ * ...
+ * for (Map.Entry&lt;Signature, Long&gt; hot : stats.hottest(10)) ...
+ * </pre>
+ * <p>
+ * The hottest signatures are the ones worth converting to a
+ * {@code PreparedCall} or a {@code CallSite}.
+ * </p>
+ */
+public class DispatchStats implements DispatchListener {
+    private static final int DEFAULT_SLOWEST = 20;
+
+    private final ConcurrentHashMap<Signature, LongAdder> callCounts = new ConcurrentHashMap<Signature, LongAdder>();
+    private final LatencyHistogram lookupLatency = new LatencyHistogram();
+    private final LatencyHistogram invokeLatency = new LatencyHistogram();
+    private final LatencyHistogram resolveLatency = new LatencyHistogram();
+    private final PriorityQueue<Resolution> slowest = new PriorityQueue<Resolution>(11, new ByTime());
+    private final int slowestSize;
+
+    /**
+     * Keeps the {@value #DEFAULT_SLOWEST} slowest resolutions.
+     */
+    public DispatchStats() {
+        this(DEFAULT_SLOWEST);
+    }
+
+    /**
+     * Keeps the <em>slowestSize</em> slowest resolutions.
+     */
+    public DispatchStats(int slowestSize) {
+        if (slowestSize <= 0) throw new IllegalArgumentException("Size must be positive: " + slowestSize);
+        this.slowestSize = slowestSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void methodCalled(Class<?> objectType, String methodName, Class<?>[] argumentTypes, long lookupTime,
+            long invokeTime) {
+        Signature signature = new Signature(objectType, methodName, argumentTypes);
+        LongAdder count = callCounts.get(signature);
+        if (count == null) {
+            LongAdder created = new LongAdder();
+            count = callCounts.putIfAbsent(signature, created);
+            if (count == null) count = created;
+        }
+        count.increment();
+
+        lookupLatency.record(lookupTime);
+        invokeLatency.record(invokeTime);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void methodResolved(Class<?> objectType, String methodName, Class<?>[] argumentTypes, Method method,
+            long resolveTime) {
+        resolveLatency.record(resolveTime);
+
+        Resolution resolution = new Resolution(new Signature(objectType, methodName, argumentTypes), method,
+                resolveTime);
+        synchronized (slowest) {
+            slowest.add(resolution);
+            if (slowest.size() > slowestSize) slowest.poll();
+        }
+    }
+
+    /**
+     * How many times each signature was called.
+     */
+    public Map<Signature, Long> callCounts() {
+        Map<Signature, Long> result = new HashMap<Signature, Long>();
+        for (Map.Entry<Signature, LongAdder> entry : callCounts.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return result;
+    }
+
+    /**
+     * The <em>size</em> most called signatures, the most called first.
+     */
+    public List<Map.Entry<Signature, Long>> hottest(int size) {
+        List<Map.Entry<Signature, Long>> result = new ArrayList<Map.Entry<Signature, Long>>(callCounts().entrySet());
+        Collections.sort(result, new Comparator<Map.Entry<Signature, Long>>() {
+            public int compare(Map.Entry<Signature, Long> one, Map.Entry<Signature, Long> other) {
+                return other.getValue().compareTo(one.getValue());
+            }
+        });
+        return result.size() > size ? result.subList(0, size) : result;
+    }
+
+    /**
+     * Time spent finding methods, in cache or not, on each call.
+     */
+    public LatencyHistogram lookupLatency() {
+        return lookupLatency;
+    }
+
+    /**
+     * Time spent in the methods called.
+     */
+    public LatencyHistogram invokeLatency() {
+        return invokeLatency;
+    }
+
+    /**
+     * Time spent finding methods the hard way.
+     */
+    public LatencyHistogram resolveLatency() {
+        return resolveLatency;
+    }
+
+    /**
+     * The slowest hard-way resolutions, the slowest first.
+     */
+    public List<Resolution> slowestResolutions() {
+        List<Resolution> result;
+        synchronized (slowest) {
+            result = new ArrayList<Resolution>(slowest);
+        }
+        Collections.sort(result, Collections.reverseOrder(new ByTime()));
+        return result;
+    }
+
+    /**
+     * Forgets everything.
+     */
+    public void reset() {
+        callCounts.clear();
+        lookupLatency.reset();
+        invokeLatency.reset();
+        resolveLatency.reset();
+        synchronized (slowest) {
+            slowest.clear();
+        }
+    }
+
+    /**
+     * A method found the hard way and how long it took.
+     */
+    public static class Resolution {
+        private final Signature signature;
+        private final Method method;
+        private final long resolveTime;
+
+        public Resolution(Signature signature, Method method, long resolveTime) {
+            this.signature = signature;
+            this.method = method;
+            this.resolveTime = resolveTime;
+        }
+
+        public Signature getSignature() {
+            return signature;
+        }
+
+        /**
+         * The method found, or null if there is no such method.
+         */
+        public Method getMethod() {
+            return method;
+        }
+
+        /**
+         * In nanoseconds.
+         */
+        public long getResolveTime() {
+            return resolveTime;
+        }
+
+        public String toString() {
+            return signature + " in " + resolveTime + "ns" + (method == null ? " (missing)" : "");
+        }
+    }
+
+    private static class ByTime implements Comparator<Resolution> {
+        public int compare(Resolution one, Resolution other) {
+            return one.resolveTime < other.resolveTime ? -1 : one.resolveTime == other.resolveTime ? 0 : 1;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ginger.ducktype;
+
+/**
+ * Estimates how often something was used recently, in a fixed amount of
+ * memory.
+ * <p>
+ * It's a Count-Min Sketch with 4-bit counters (so it never counts beyond 15),
+ * 16 counters per long. Each item is counted in 4 different counters and its
+ * frequency is the smallest of them. Once in a while every counter is halved,
+ * so old popularity fades away.
+ * </p>
+ * <p>
+ * It's not thread safe, whoever uses it must synchronize.
+ * </p>
+ */
+class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAXIMUM_COUNT = 15;
+    // Beyond that, the table alone would take gigabytes
+    private static final int MAXIMUM_TABLE_SIZE = 1 << 26;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions = 0;
+
+    public FrequencySketch(int maximumSize) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+
+        int size = Math.min(Math.max(maximumSize, 8), MAXIMUM_TABLE_SIZE);
+        int tableSize = Integer.highestOneBit(size - 1) << 1;
+        this.table = new long[tableSize];
+        this.tableMask = tableSize - 1;
+        this.sampleSize = 10 * size;
+    }
+
+    /**
+     * How many times (up to 15) the item with this hash code was counted
+     * recently.
+     */
+    public int frequency(int hashCode) {
+        int hash = spread(hashCode);
+        int start = (hash & 3) << 2;
+        int result = MAXIMUM_COUNT;
+        for (int depth = 0; depth < 4; depth++) {
+            int offset = (start + depth) << 2;
+            int count = (int) ((table[indexOf(hash, depth)] >>> offset) & 0xfL);
+            result = Math.min(result, count);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the item with this hash code once more. Taking the hash code
+     * instead of the item lets callers count things they never built.
+     */
+    public void increment(int hashCode) {
+        int hash = spread(hashCode);
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int depth = 0; depth < 4; depth++) {
+            int index = indexOf(hash, depth);
+            int offset = (start + depth) << 2;
+            if (((table[index] >>> offset) & 0xfL) < MAXIMUM_COUNT) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+
+        if (added && ++additions == sampleSize) reset();
+    }
+
+    /**
+     * Halves every counter.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions = additions / 2;
+    }
+
+    private int indexOf(int hash, int depth) {
+        long result = (hash + SEEDS[depth]) * SEEDS[depth];
+        result += result >>> 32;
+        return ((int) result) & tableMask;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,112 @@
+package ginger.ducktype;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Method cache that finds methods by the identity of the classes involved,
+ * instead of building a key with their names.
+ * <p>
+ * It's a map of classes to a {@link MethodTable} each. Classes are compared by
+ * identity and so are the argument types. So, finding a method that's in cache
+ * allocates nothing.
+ * </p>
+ * <p>
+ * Just like {@link SimpleMethodCache}, it has no limit and no automatic purge.
+ * </p>
+ */
+public class IdentityMethodCache implements MethodCache {
+    private final ConcurrentHashMap<Class<?>, MethodTable<Method>> cache = new ConcurrentHashMap<Class<?>, MethodTable<Method>>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final StatsCounter stats = new StatsCounter();
+
+    /**
+     * {@inheritDoc}
+     */
+    public void put(Method method, Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        if (tableOf(objectType).put(method, methodName, argumentTypes)) size.incrementAndGet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Method get(Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        MethodTable<Method> table = cache.get(objectType);
+        Method result = table == null ? null : table.find(methodName, argumentTypes);
+        if (result == null) {
+            stats.recordMiss();
+        } else {
+            stats.recordHit();
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void clear() {
+        cache.clear();
+        size.set(0);
+        stats.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int hitCount() {
+        return stats.hitCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int missesCount() {
+        return stats.missCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void recordLoad(long loadTime) {
+        stats.recordLoad(loadTime);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public MethodCacheStats stats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Set<Signature> signatures() {
+        Set<Signature> result = new HashSet<Signature>();
+        for (Map.Entry<Class<?>, MethodTable<Method>> entry : cache.entrySet()) {
+            entry.getValue().collectSignatures(entry.getKey(), result);
+        }
+        return result;
+    }
+
+    private MethodTable<Method> tableOf(Class<?> objectType) {
+        MethodTable<Method> result = cache.get(objectType);
+        if (result == null) {
+            MethodTable<Method> created = new MethodTable<Method>();
+            result = cache.putIfAbsent(objectType, created);
+            if (result == null) result = created;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,15 @@
+package ginger.ducktype;
+
+import java.lang.reflect.Method;
+
+/**
+ * The interface to an engine that knows how to execute methods already found
+ * by DuckType.
+ */
+public interface InvocationEngine {
+
+    /**
+     * Gets something able to execute the method.
+     */
+    public Invoker invokerFor(Method method) throws IllegalAccessException;
+}
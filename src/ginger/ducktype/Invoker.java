@@ -0,0 +1,15 @@
+package ginger.ducktype;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Something able to execute one specific method that was already found.
+ */
+public interface Invoker {
+
+    /**
+     * Executes the method on the target with the arguments. It's the same
+     * contract as {@link java.lang.reflect.Method#invoke(Object, Object...)}.
+     */
+    public Object invoke(Object target, Object... arguments) throws IllegalAccessException, InvocationTargetException;
+}
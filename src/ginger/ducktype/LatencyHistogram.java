@@ -0,0 +1,89 @@
+package ginger.ducktype;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts latencies in buckets of powers of two: 0-1ns, 2-3ns, 4-7ns, 8-15ns
+ * and so on. It's not precise, but it's fixed size, lock free, and tells
+ * apart a 50ns call from a 5&micro;s one, which is what we want to know.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * Counts one more latency, in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        total.add(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Average latency, in nanoseconds.
+     */
+    public double mean() {
+        long count = count();
+        return count == 0 ? 0.0 : (double) total.sum() / count;
+    }
+
+    /**
+     * The latency (an upper bound, in nanoseconds) below which are the
+     * <em>percentile</em> (from 0 to 100) fastest ones.
+     */
+    public long percentile(double percentile) {
+        long count = count();
+        if (count == 0) return 0;
+
+        long wanted = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= wanted && seen > 0) return upperBoundOf(i);
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    /**
+     * How many latencies in each bucket. Bucket <em>i</em> goes up to
+     * 2<sup>i+1</sup>-1 nanoseconds.
+     */
+    public long[] buckets() {
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            result[i] = buckets.get(i);
+        }
+        return result;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+    }
+
+    public String toString() {
+        return String.format("count=%d, mean=%.0fns, p50=%dns, p99=%dns", count(), mean(), percentile(50),
+                             percentile(99));
+    }
+
+    private static int bucketOf(long nanos) {
+        return nanos == 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        return bucket >= 62 ? Long.MAX_VALUE : (2L << bucket) - 1;
+    }
+}
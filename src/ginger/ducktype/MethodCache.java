@@ -1,6 +1,8 @@
 package ginger.ducktype;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * The interface to a caching engine speed up the method lookup. 
@@ -10,12 +12,12 @@ public interface MethodCache {
     /**
      * Add a method to cache using the method name and argument types as key to find it later.
      */
-    public void put(Method method, String objectType, String methodName, Class<?>... argumentTypes);
+    public void put(Method method, Class<?> objectType, String methodName, Class<?>... argumentTypes);
     
     /**
      * Gets the method from cache using the method name and argument types.
      */
-    public Method get(String objectType, String methodName, Class<?>... argumentTypes);
+    public Method get(Class<?> objectType, String methodName, Class<?>... argumentTypes);
     
     /**
      * Empties the cache.
@@ -36,4 +38,27 @@ public interface MethodCache {
      * How many methods do we have in cache.
      */
     public int size();
+
+    /**
+     * Tells the cache how long, in nanoseconds, it took to find a method that
+     * was not in cache. Caches that don't keep that can ignore it.
+     */
+    public default void recordLoad(long loadTime) {}
+
+    /**
+     * A snapshot of the cache usage: hits, misses, time spent finding methods
+     * and so on. Caches that only count hits and misses get just those.
+     */
+    public default MethodCacheStats stats() {
+        return new MethodCacheStats(hitCount(), missesCount(), 0, 0, 0);
+    }
+
+    /**
+     * The signatures of every method in cache. It's a copy, so the cache can
+     * go on changing while you go through it. Caches that can't list their
+     * methods give an empty set (and there is nothing to save).
+     */
+    public default Set<Signature> signatures() {
+        return Collections.emptySet();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package ginger.ducktype;
+
+/**
+ * A snapshot of the usage of a method cache. It never changes, ask the cache
+ * for a new one with {@link MethodCache#stats()}.
+ */
+public class MethodCacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long loadCount;
+    private final long totalLoadTime;
+    private final long evictionCount;
+
+    public MethodCacheStats(long hitCount, long missCount, long loadCount, long totalLoadTime, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadCount = loadCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+    }
+
+    /**
+     * How many times we found methods in cache.
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * How many times we didn't find methods in cache.
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * How many times DuckType had to find a method by itself (the "hard way")
+     * after a miss.
+     */
+    public long loadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Total time, in nanoseconds, DuckType spent finding methods by itself.
+     */
+    public long totalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * How many methods left the cache before being cleared.
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * How many times we asked the cache for a method.
+     */
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * From 0 to 1, how often we found methods in cache. It's 1 if we never
+     * asked for anything.
+     */
+    public double hitRate() {
+        long requestCount = requestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Average time, in nanoseconds, to find a method that's not in cache.
+     */
+    public double averageLoadPenalty() {
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    @Override
+    public String toString() {
+        return "MethodCacheStats(hits=" + hitCount + ", misses=" + missCount + ", loads=" + loadCount
+                + ", totalLoadTime=" + totalLoadTime + "ns, evictions=" + evictionCount + ")";
+    }
+}
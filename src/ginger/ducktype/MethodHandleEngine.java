@@ -0,0 +1,135 @@
+package ginger.ducktype;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Engine that executes methods using {@link MethodHandle}s.
+ * <p>
+ * Every method is converted to a handle only once and the handle is kept
+ * here. The handle is adapted to the shape <code>(Object, Object[])Object</code>
+ * so we can call it with <code>invokeExact</code>, without the access checks
+ * and the argument copying {@link Method#invoke(Object, Object...)} does every
+ * time. That also gives the JIT a chance to inline the target method.
+ * </p>
+ * <p>
+ * Handles are kept with the class that declares the method, so they don't
+ * hold it (and its class loader) after it's gone.
+ * </p>
+ * <p>
+ * The {@link Lookup} says which methods we are allowed to call. DuckType gives
+ * its own lookup, so we can call exactly the same methods reflection can.
+ * </p>
+ */
+public class MethodHandleEngine implements InvocationEngine {
+    private volatile ClassValue<Map<Method, Invoker>> invokers = newInvokers();
+    private final Lookup lookup;
+
+    public MethodHandleEngine(Lookup lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Invoker invokerFor(Method method) throws IllegalAccessException {
+        Map<Method, Invoker> declaredInvokers = invokers.get(method.getDeclaringClass());
+        Invoker result = declaredInvokers.get(method);
+
+        // First time here, convert it and remember
+        if (result == null) {
+            result = newInvoker(lookup, method);
+            declaredInvokers.put(method, result);
+        }
+        return result;
+    }
+
+    /**
+     * Forgets the handles we have converted so far.
+     */
+    public void clear() {
+        invokers = newInvokers();
+    }
+
+    /**
+     * Converts the method to an invoker, without caching it.
+     */
+    static Invoker newInvoker(Lookup lookup, Method method) throws IllegalAccessException {
+        return new HandleInvoker(toGenericHandle(lookup, method));
+    }
+
+    private static MethodHandle toGenericHandle(Lookup lookup, Method method) throws IllegalAccessException {
+        int arity = method.getParameterTypes().length;
+
+        // DuckType always gives the exact number of arguments, even for varargs
+        MethodHandle handle = lookup.unreflect(method).asFixedArity();
+
+        // Before adapting the arguments, otherwise we can't tell them apart
+        handle = TargetException.marking(handle);
+
+        // Static methods ignore the target, just like reflection does
+        if (Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+
+        return handle.asType(MethodType.genericMethodType(arity + 1))
+                     .asSpreader(Object[].class, arity);
+    }
+
+    private static class HandleInvoker implements Invoker {
+        private final MethodHandle handle;
+
+        public HandleInvoker(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        public Object invoke(Object target, Object... arguments) throws InvocationTargetException {
+            try {
+
+                return (Object) handle.invokeExact(target, arguments);
+
+            } catch (TargetException e) {
+                /*
+                 * Reflection wraps whatever comes from the method, so do we.
+                 * Otherwise DuckType would behave differently depending on the
+                 * engine in use.
+                 */
+                throw new InvocationTargetException(e.getCause());
+            } catch (ClassCastException e) {
+                throw badArguments(e);
+            } catch (NullPointerException e) {
+                // Unboxing a null to a primitive parameter
+                throw badArguments(e);
+            } catch (WrongMethodTypeException e) {
+                throw badArguments(e);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        private IllegalArgumentException badArguments(RuntimeException e) {
+            // Same as reflection, the arguments don't fit the method
+            return new IllegalArgumentException("argument type mismatch", e);
+        }
+    }
+
+    private static ClassValue<Map<Method, Invoker>> newInvokers() {
+        return new ClassValue<Map<Method, Invoker>>() {
+            protected Map<Method, Invoker> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<Method, Invoker>();
+            }
+        };
+    }
+}
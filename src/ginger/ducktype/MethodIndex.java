@@ -0,0 +1,288 @@
+package ginger.ducktype;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * All public methods of a class, grouped by name and number of parameters, so
+ * DuckType doesn't need to go through every one of them to find a method.
+ * <p>
+ * The index of a class is built only once, the first time we ask for it, and
+ * goes away when the class is unloaded.
+ * </p>
+ * <p>
+ * When more than one method accepts the arguments, we choose the same way the
+ * Java compiler does (JLS 15.12.2): first the methods that accept the
+ * arguments as they are (primitives may widen, like an int to a long), then
+ * the ones that need to box or unbox them (an Integer unboxes to an int and may
+ * widen to a long too), then the varargs methods taking the extra arguments in
+ * their array. Among those, the
+ * most specific one wins. A {@link Null} argument is accepted by any parameter
+ * that isn't a primitive. DuckType can't complain about ambiguous calls
+ * like the compiler does, so if there is no single most specific method, the
+ * first one found wins.
+ * </p>
+ */
+public class MethodIndex {
+    private static final ClassValue<MethodIndex> indexes = new ClassValue<MethodIndex>() {
+        protected MethodIndex computeValue(Class<?> type) {
+            return new MethodIndex(type.getMethods());
+        }
+    };
+
+    private static final Map<Class<?>, Class<?>> wrappers = new HashMap<Class<?>, Class<?>>();
+    static {
+        wrappers.put(Boolean.TYPE, Boolean.class);
+        wrappers.put(Character.TYPE, Character.class);
+        wrappers.put(Byte.TYPE, Byte.class);
+        wrappers.put(Short.TYPE, Short.class);
+        wrappers.put(Integer.TYPE, Integer.class);
+        wrappers.put(Long.TYPE, Long.class);
+        wrappers.put(Float.TYPE, Float.class);
+        wrappers.put(Double.TYPE, Double.class);
+    }
+
+    private static final Map<Class<?>, Class<?>> primitives = new HashMap<Class<?>, Class<?>>();
+    static {
+        for (Map.Entry<Class<?>, Class<?>> entry : wrappers.entrySet()) {
+            primitives.put(entry.getValue(), entry.getKey());
+        }
+    }
+
+    // JLS 5.1.2, what each primitive can widen to
+    private static final Map<Class<?>, Set<Class<?>>> widenings = new HashMap<Class<?>, Set<Class<?>>>();
+    static {
+        widenings.put(Byte.TYPE, wideningsOf(Short.TYPE, Integer.TYPE, Long.TYPE, Float.TYPE, Double.TYPE));
+        widenings.put(Short.TYPE, wideningsOf(Integer.TYPE, Long.TYPE, Float.TYPE, Double.TYPE));
+        widenings.put(Character.TYPE, wideningsOf(Integer.TYPE, Long.TYPE, Float.TYPE, Double.TYPE));
+        widenings.put(Integer.TYPE, wideningsOf(Long.TYPE, Float.TYPE, Double.TYPE));
+        widenings.put(Long.TYPE, wideningsOf(Float.TYPE, Double.TYPE));
+        widenings.put(Float.TYPE, wideningsOf(Double.TYPE));
+    }
+
+    private final Map<String, Candidate[][]> methods = new HashMap<String, Candidate[][]>();
+    private final Map<String, Candidate[]> varargsMethods = new HashMap<String, Candidate[]>();
+
+    /**
+     * The index of the public methods of the class.
+     */
+    public static MethodIndex of(Class<?> type) {
+        return indexes.get(type);
+    }
+
+    private MethodIndex(Method[] allMethods) {
+        Map<String, List<Candidate>> byName = new HashMap<String, List<Candidate>>();
+        for (Method method : allMethods) {
+            List<Candidate> candidates = byName.get(method.getName());
+            if (candidates == null) {
+                candidates = new ArrayList<Candidate>();
+                byName.put(method.getName(), candidates);
+            }
+            candidates.add(new Candidate(method));
+        }
+
+        for (Map.Entry<String, List<Candidate>> entry : byName.entrySet()) {
+            methods.put(entry.getKey(), groupByArity(entry.getValue()));
+
+            List<Candidate> varargs = new ArrayList<Candidate>();
+            for (Candidate candidate : entry.getValue()) {
+                if (candidate.method.isVarArgs()) varargs.add(candidate);
+            }
+            if (!varargs.isEmpty()) varargsMethods.put(entry.getKey(), varargs.toArray(new Candidate[0]));
+        }
+    }
+
+    /**
+     * Finds the method that best accepts arguments of these types, or null if
+     * no method accepts them.
+     * <p>
+     * Argument types can be primitives, they match primitive parameters they
+     * can widen to and, boxed, reference parameters. Null arguments are
+     * {@link Null}.
+     * </p>
+     */
+    public Method find(String methodName, Class<?>... argumentTypes) {
+        Candidate result = null;
+
+        Candidate[][] byArity = methods.get(methodName);
+        if (byArity != null && argumentTypes.length < byArity.length && byArity[argumentTypes.length] != null) {
+            Candidate[] candidates = byArity[argumentTypes.length];
+
+            // First phase: no boxing nor unboxing. Second phase: both allowed.
+            result = mostSpecific(candidates, argumentTypes, false);
+            if (result == null) result = mostSpecific(candidates, argumentTypes, true);
+        }
+
+        // Third phase: varargs
+        if (result == null) {
+            Candidate[] varargs = varargsMethods.get(methodName);
+            if (varargs != null) result = mostSpecificVarargs(varargs, argumentTypes);
+        }
+
+        return result == null ? null : result.method;
+    }
+
+    private Candidate mostSpecific(Candidate[] candidates, Class<?>[] argumentTypes, boolean boxing) {
+        Candidate result = null;
+        for (Candidate candidate : candidates) {
+            if (!candidate.accepts(argumentTypes, boxing)) continue;
+            if (result == null || candidate.isMoreSpecificThan(result)) result = candidate;
+        }
+        return result;
+    }
+
+    private Candidate mostSpecificVarargs(Candidate[] candidates, Class<?>[] argumentTypes) {
+        Candidate result = null;
+        for (Candidate candidate : candidates) {
+            if (!candidate.acceptsVarargs(argumentTypes)) continue;
+            if (result == null || candidate.isMoreSpecificVarargsThan(result)) result = candidate;
+        }
+        return result;
+    }
+
+    private static Candidate[][] groupByArity(List<Candidate> candidates) {
+        int maximumArity = 0;
+        for (Candidate candidate : candidates) {
+            maximumArity = Math.max(maximumArity, candidate.parameterTypes.length);
+        }
+
+        List<List<Candidate>> byArity = new ArrayList<List<Candidate>>();
+        for (int i = 0; i <= maximumArity; i++) {
+            byArity.add(new ArrayList<Candidate>());
+        }
+        for (Candidate candidate : candidates) {
+            byArity.get(candidate.parameterTypes.length).add(candidate);
+        }
+
+        Candidate[][] result = new Candidate[maximumArity + 1][];
+        for (int i = 0; i <= maximumArity; i++) {
+            if (!byArity.get(i).isEmpty()) result[i] = byArity.get(i).toArray(new Candidate[0]);
+        }
+        return result;
+    }
+
+    private static Set<Class<?>> wideningsOf(Class<?>... types) {
+        return new HashSet<Class<?>>(Arrays.asList(types));
+    }
+
+    /**
+     * True if the primitive <em>from</em> widens to the primitive <em>to</em>.
+     */
+    private static boolean widens(Class<?> from, Class<?> to) {
+        Set<Class<?>> result = widenings.get(from);
+        return result != null && result.contains(to);
+    }
+
+    /**
+     * A method with everything we need to compare it to the arguments already
+     * at hand.
+     */
+    private static class Candidate {
+        private final Method method;
+        private final Class<?>[] parameterTypes;
+
+        public Candidate(Method method) {
+            this.method = method;
+            this.parameterTypes = method.getParameterTypes();
+        }
+
+        /**
+         * "Accept" means:
+         * <ul>
+         * <li>The parameter is of the same type of the argument;</li>
+         * <li>The parameter is an ancestor of the argument;</li>
+         * <li>Both are primitives and the argument widens to the parameter;</li>
+         * <li>If boxing is allowed, the parameter is a primitive and the
+         * argument is a wrapper whose primitive is the same or widens to it;</li>
+         * <li>If boxing is allowed, the argument is a primitive and its wrapper
+         * is the parameter or one of its descendants;</li>
+         * <li>The argument is null and the parameter is not a primitive.</li>
+         * </ul>
+         */
+        public boolean accepts(Class<?>[] argumentTypes, boolean boxing) {
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (!accepts(parameterTypes[i], argumentTypes[i], boxing)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Same as {@link #accepts(Class[], boolean)}, with boxing, but the
+         * arguments past the fixed parameters go to the varargs array.
+         */
+        public boolean acceptsVarargs(Class<?>[] argumentTypes) {
+            int fixedCount = parameterTypes.length - 1;
+            if (argumentTypes.length < fixedCount) return false;
+
+            for (int i = 0; i < fixedCount; i++) {
+                if (!accepts(parameterTypes[i], argumentTypes[i], true)) return false;
+            }
+
+            Class<?> componentType = parameterTypes[fixedCount].getComponentType();
+            for (int i = fixedCount; i < argumentTypes.length; i++) {
+                if (!accepts(componentType, argumentTypes[i], true)) return false;
+            }
+            return true;
+        }
+
+        private static boolean accepts(Class<?> parameterType, Class<?> argumentType, boolean boxing) {
+            if (parameterType == argumentType) return true;
+            if (argumentType == Null.class) return !parameterType.isPrimitive();
+
+            if (parameterType.isPrimitive()) {
+                if (argumentType.isPrimitive()) return widens(argumentType, parameterType);
+                if (!boxing) return false;
+
+                Class<?> unboxed = primitives.get(argumentType);
+                return unboxed == parameterType || (unboxed != null && widens(unboxed, parameterType));
+            }
+
+            if (argumentType.isPrimitive()) return boxing && parameterType.isAssignableFrom(wrappers.get(argumentType));
+            return parameterType.isAssignableFrom(argumentType);
+        }
+
+        /**
+         * More specific means every parameter can be passed to the other
+         * method (an int to a long too). For the same parameters (covariant returns), the real method
+         * is more specific than the bridge the compiler generates.
+         */
+        public boolean isMoreSpecificThan(Candidate other) {
+            boolean sameParameters = true;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Class<?> mine = parameterTypes[i];
+                Class<?> theirs = other.parameterTypes[i];
+
+                if (mine == theirs) continue;
+                sameParameters = false;
+                if (mine.isPrimitive() && theirs.isPrimitive()) {
+                    if (!widens(mine, theirs)) return false;
+                    continue;
+                }
+                if (mine.isPrimitive() || theirs.isPrimitive()) return false;
+                if (!theirs.isAssignableFrom(mine)) return false;
+            }
+
+            if (!sameParameters) return true;
+
+            if (method.isBridge() != other.method.isBridge()) return other.method.isBridge();
+            Class<?> myReturn = method.getReturnType();
+            Class<?> theirReturn = other.method.getReturnType();
+            return myReturn != theirReturn && theirReturn.isAssignableFrom(myReturn);
+        }
+
+        /**
+         * Between varargs methods, only the ones with the same number of
+         * parameters are compared, varargs array included. Otherwise, the
+         * first one found wins.
+         */
+        public boolean isMoreSpecificVarargsThan(Candidate other) {
+            return parameterTypes.length == other.parameterTypes.length && isMoreSpecificThan(other);
+        }
+    }
+}
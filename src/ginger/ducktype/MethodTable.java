@@ -0,0 +1,128 @@
+package ginger.ducktype;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The methods already found for one single class, by name and argument types.
+ * What we keep for each method is up to the user (usually, the {@link Method}
+ * itself).
+ * <p>
+ * Method names are compared by equality (that's a single comparison when the
+ * name is the same String) and argument types by identity. So, finding a
+ * method allocates nothing.
+ * </p>
+ */
+class MethodTable<V> {
+    private static final Entry<?>[] NO_ENTRIES = new Entry<?>[0];
+
+    private final Map<String, Entry<V>[]> methods = new ConcurrentHashMap<String, Entry<V>[]>();
+
+    /**
+     * Finds the method, or null if it's not here.
+     */
+    public V find(String methodName, Class<?>[] argumentTypes) {
+        Entry<V>[] entries = methods.get(methodName);
+        if (entries == null) return null;
+
+        for (Entry<V> entry : entries) {
+            if (entry.accepts(argumentTypes)) return entry.value;
+        }
+        return null;
+    }
+
+    /**
+     * Adds (or replaces) a method.
+     * <p>
+     * Entries are never changed in place, we copy and replace them. So
+     * {@link #find(String, Class[])} can read them without any lock. Only
+     * writers wait for each other.
+     * </p>
+     * 
+     * @return true if it's a new entry, false if it replaced an old one.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized boolean put(V value, String methodName, Class<?>[] argumentTypes) {
+        Entry<V>[] entries = methods.get(methodName);
+        if (entries == null) entries = (Entry<V>[]) NO_ENTRIES;
+
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].accepts(argumentTypes)) {
+                Entry<V>[] replaced = entries.clone();
+                replaced[i] = new Entry<V>(value, argumentTypes);
+                methods.put(methodName, replaced);
+                return false;
+            }
+        }
+
+        Entry<V>[] added = Arrays.copyOf(entries, entries.length + 1);
+        added[entries.length] = new Entry<V>(value, argumentTypes);
+        methods.put(methodName, added);
+        return true;
+    }
+
+    /**
+     * Removes a method, copying the entries just like
+     * {@link #put(Object, String, Class[])}.
+     * 
+     * @return true if it was here.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized boolean remove(String methodName, Class<?>[] argumentTypes) {
+        Entry<V>[] entries = methods.get(methodName);
+        if (entries == null) return false;
+
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].accepts(argumentTypes)) {
+                if (entries.length == 1) {
+                    methods.remove(methodName);
+                } else {
+                    Entry<V>[] removed = (Entry<V>[]) new Entry<?>[entries.length - 1];
+                    System.arraycopy(entries, 0, removed, 0, i);
+                    System.arraycopy(entries, i + 1, removed, i, removed.length - i);
+                    methods.put(methodName, removed);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if there is no method here.
+     */
+    public boolean isEmpty() {
+        return methods.isEmpty();
+    }
+
+    /**
+     * Adds the signature of every method in the table to <em>signatures</em>.
+     */
+    public void collectSignatures(Class<?> objectType, Collection<Signature> signatures) {
+        for (Map.Entry<String, Entry<V>[]> named : methods.entrySet()) {
+            for (Entry<V> entry : named.getValue()) {
+                signatures.add(new Signature(objectType, named.getKey(), entry.argumentTypes));
+            }
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final Class<?>[] argumentTypes;
+
+        public Entry(V value, Class<?>[] argumentTypes) {
+            this.value = value;
+            // Whoever gave us the array can change it later
+            this.argumentTypes = argumentTypes.clone();
+        }
+
+        /**
+         * Classes don't override "equals", so it's an identity comparison.
+         */
+        public boolean accepts(Class<?>[] otherArgumentTypes) {
+            return Arrays.equals(argumentTypes, otherArgumentTypes);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ginger.ducktype;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers the methods DuckType looked for and couldn't find.
+ * <p>
+ * Looking for a method that doesn't exist is the slowest lookup of all:
+ * DuckType has to check every public method before giving up. Classes don't
+ * grow new methods, so once is enough.
+ * </p>
+ * <p>
+ * Just like {@link ClassValueMethodCache}, whatever we remember about a class
+ * goes away when the class is unloaded.
+ * </p>
+ */
+public class MissingMethods {
+    private volatile ClassValue<MethodTable<Signature>> tables = newTables();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Remembers the method is not there.
+     */
+    public void add(Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        Signature signature = new Signature(objectType, methodName, argumentTypes);
+        if (tables.get(objectType).put(signature, methodName, argumentTypes)) size.incrementAndGet();
+    }
+
+    /**
+     * True if we already know the method is not there.
+     */
+    public boolean contains(Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        return find(objectType, methodName, argumentTypes) != null;
+    }
+
+    /**
+     * The signature we remembered for the missing method, or null if we don't
+     * know it's missing. Finding it allocates nothing.
+     */
+    public Signature find(Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        return tables.get(objectType).find(methodName, argumentTypes);
+    }
+
+    /**
+     * Forgets everything.
+     */
+    public void clear() {
+        tables = newTables();
+        size.set(0);
+    }
+
+    /**
+     * How many missing methods we remember. Classes already unloaded are
+     * still counted, so it's an upper bound.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private static ClassValue<MethodTable<Signature>> newTables() {
+        return new ClassValue<MethodTable<Signature>>() {
+            protected MethodTable<Signature> computeValue(Class<?> type) {
+                return new MethodTable<Signature>();
+            }
+        };
+    }
+}
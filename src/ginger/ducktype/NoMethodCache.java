@@ -1,25 +1,27 @@
 package ginger.ducktype;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * Engine to ignore caching at all.
  */
 public class NoMethodCache implements MethodCache {
 
-    private int missesCount = 0;
+    private final StatsCounter stats = new StatsCounter();
     
     /**
      * Ignore the method being cached (does NOT cache it).
      */
-    public void put(Method method, String objectType, String methodName, Class<?>... argumentTypes) {
+    public void put(Method method, Class<?> objectType, String methodName, Class<?>... argumentTypes) {
     }
 
     /**
      * Always return null, meaning "not found in cache".
      */
-    public Method get(String objectType, String methodName, Class<?>... argumentTypes) {
-        missesCount++;
+    public Method get(Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        stats.recordMiss();
         return null;
     }
 
@@ -27,7 +29,7 @@ public class NoMethodCache implements MethodCache {
      * Do nothing. A clear on a clean cache is pointless.
      */
     public void clear() {
-        missesCount = 0;
+        stats.reset();
     }
 
     /**
@@ -41,7 +43,7 @@ public class NoMethodCache implements MethodCache {
      *  How many time this cache was asked for a method.
      */
     public int missesCount() {
-        return missesCount;
+        return stats.missCount();
     }
 
     /**
@@ -50,4 +52,26 @@ public class NoMethodCache implements MethodCache {
     public int size() {
         return 0;
     }
+
+    /**
+     * We still count how long it took to find the methods, it's nice to know
+     * how much caching would save.
+     */
+    public void recordLoad(long loadTime) {
+        stats.recordLoad(loadTime);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public MethodCacheStats stats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Set<Signature> signatures() {
+        return Collections.emptySet();
+    }
 }
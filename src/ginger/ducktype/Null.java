@@ -0,0 +1,17 @@
+package ginger.ducktype;
+
+/**
+ * The type of a null argument, as far as DuckType is concerned.
+ * <p>
+ * A null has no class, but DuckType needs one to find (and cache) the method.
+ * Using <code>Object</code> would only find methods taking an Object, and
+ * would mix calls with nulls with calls with real Objects in cache. This class
+ * is accepted by any parameter that isn't a primitive, just like null.
+ * </p>
+ */
+public final class Null {
+
+    private Null() {
+        // Only the class is used, never an instance
+    }
+}
@@ -0,0 +1,104 @@
+package ginger.ducktype;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * A property of a class, read and written through its getter and setter or
+ * straight through its public field.
+ * <p>
+ * Both sides are method handles already adapted to <code>Object</code>, so
+ * using a property is one <code>invokeExact</code>. Primitives are boxed and
+ * unboxed on the way.
+ * </p>
+ */
+public class Property {
+    private final String name;
+    private final Class<?> type;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+
+    /**
+     * @param getter
+     *            Shape <code>(Object)Object</code>, or null if the property
+     *            can't be read.
+     * @param setter
+     *            Shape <code>(Object, Object)void</code>, or null if the
+     *            property can't be written.
+     */
+    Property(String name, Class<?> type, MethodHandle getter, MethodHandle setter) {
+        this.name = name;
+        this.type = type;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public boolean isReadable() {
+        return getter != null;
+    }
+
+    public boolean isWritable() {
+        return setter != null;
+    }
+
+    /**
+     * Reads the property of the target. Check {@link #isReadable()} first.
+     * 
+     * @throws IllegalArgumentException
+     *             If the target doesn't have this property.
+     */
+    public Object get(Object target) throws InvocationTargetException {
+        try {
+
+            return (Object) getter.invokeExact(target);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Writes the property of the target. Check {@link #isWritable()} first.
+     * 
+     * @throws IllegalArgumentException
+     *             If the target doesn't have this property, or the value
+     *             doesn't fit it.
+     */
+    public void set(Object target, Object value) throws InvocationTargetException {
+        try {
+
+            setter.invokeExact(target, value);
+
+        } catch (Throwable e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * Same as the invocation engines: whatever comes from the getter or setter
+     * is wrapped, a target or value that doesn't fit is the caller's fault.
+     */
+    private static InvocationTargetException failure(Throwable e) {
+        if (e instanceof TargetException) return new InvocationTargetException(e.getCause());
+        if (e instanceof ClassCastException || e instanceof NullPointerException
+                || e instanceof WrongMethodTypeException) {
+            throw new IllegalArgumentException("argument type mismatch", e);
+        }
+        if (e instanceof RuntimeException) throw (RuntimeException) e;
+        if (e instanceof Error) throw (Error) e;
+        return new InvocationTargetException(e);
+    }
+
+    public String toString() {
+        return "Property(" + type.getName() + " " + name + ")";
+    }
+}
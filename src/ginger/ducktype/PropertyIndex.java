@@ -0,0 +1,185 @@
+package ginger.ducktype;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All properties of each class, built only once, the first time we ask for
+ * them.
+ * <p>
+ * A property is a public getter (<em>getName()</em>, or <em>isName()</em> for
+ * booleans), a public setter (<em>setName(value)</em>) or a public field. If
+ * there are both, the methods win, the field is used only for the missing
+ * side. When a setter is overloaded, the one taking the type of the getter
+ * wins.
+ * </p>
+ * <p>
+ * Only what the lookup can access counts, the same rule as the invocation
+ * engines. A property we can't use is as if it wasn't there.
+ * </p>
+ * <p>
+ * Just like {@link MethodIndex}, the properties of a class go away when the
+ * class is unloaded.
+ * </p>
+ */
+public class PropertyIndex {
+    private static final Map<String, Property> NO_PROPERTIES = Collections.emptyMap();
+
+    private final ClassValue<Map<String, Property>> indexes = new ClassValue<Map<String, Property>>() {
+        protected Map<String, Property> computeValue(Class<?> type) {
+            return index(type);
+        }
+    };
+    private final Lookup lookup;
+
+    /**
+     * @param lookup
+     *            Says which getters, setters and fields we are allowed to use.
+     */
+    public PropertyIndex(Lookup lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * The property of the class, or null if there is no such property.
+     */
+    public Property find(Class<?> type, String name) {
+        return indexes.get(type).get(name);
+    }
+
+    /**
+     * Every property of the class, by name.
+     */
+    public Map<String, Property> propertiesOf(Class<?> type) {
+        return indexes.get(type);
+    }
+
+    private Map<String, Property> index(Class<?> type) {
+        Map<String, Method> getters = new HashMap<String, Method>();
+        Map<String, List<Method>> setters = new HashMap<String, List<Method>>();
+        for (Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.isBridge()) continue;
+
+            String getter = getterName(method);
+            if (getter != null) getters.put(getter, method);
+
+            String setter = setterName(method);
+            if (setter != null) {
+                List<Method> overloads = setters.get(setter);
+                if (overloads == null) {
+                    overloads = new ArrayList<Method>();
+                    setters.put(setter, overloads);
+                }
+                overloads.add(method);
+            }
+        }
+
+        Map<String, Field> fields = new HashMap<String, Field>();
+        for (Field field : type.getFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) fields.put(field.getName(), field);
+        }
+
+        List<String> names = new ArrayList<String>(getters.keySet());
+        names.addAll(setters.keySet());
+        names.addAll(fields.keySet());
+        if (names.isEmpty()) return NO_PROPERTIES;
+
+        Map<String, Property> result = new HashMap<String, Property>();
+        for (String name : names) {
+            if (result.containsKey(name)) continue;
+
+            Property property = newProperty(name, getters.get(name), setters.get(name), fields.get(name));
+            if (property != null) result.put(name, property);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private Property newProperty(String name, Method getter, List<Method> setters, Field field) {
+        Class<?> type = getter != null ? getter.getReturnType() : field != null ? field.getType() : null;
+        Method setter = chooseSetter(setters, type);
+        if (type == null) type = setter.getParameterTypes()[0];
+
+        MethodHandle getterHandle = null;
+        MethodHandle setterHandle = null;
+        try {
+
+            if (getter != null) {
+                getterHandle = lookup.unreflect(getter);
+            } else if (field != null) {
+                getterHandle = lookup.unreflectGetter(field);
+            }
+
+            if (setter != null) {
+                setterHandle = lookup.unreflect(setter);
+            } else if (field != null && !Modifier.isFinal(field.getModifiers())) {
+                setterHandle = lookup.unreflectSetter(field);
+            }
+
+        } catch (IllegalAccessException e) {
+            // Not for us, as if the property wasn't there
+            return null;
+        }
+
+        // Marked before adapting, so Property can tell a bad value from a failing setter
+        if (getterHandle != null) {
+            getterHandle = TargetException.marking(getterHandle).asType(methodType(Object.class, Object.class));
+        }
+        if (setterHandle != null) {
+            setterHandle = TargetException.marking(setterHandle)
+                    .asType(methodType(void.class, Object.class, Object.class));
+        }
+        return new Property(name, type, getterHandle, setterHandle);
+    }
+
+    private Method chooseSetter(List<Method> setters, Class<?> type) {
+        if (setters == null) return null;
+
+        for (Method setter : setters) {
+            if (setter.getParameterTypes()[0] == type) return setter;
+        }
+        return setters.get(0);
+    }
+
+    private static String getterName(Method method) {
+        if (method.getParameterTypes().length != 0) return null;
+
+        String name = method.getName();
+        Class<?> type = method.getReturnType();
+        if (name.startsWith("get") && name.length() > 3 && type != Void.TYPE && !name.equals("getClass")) {
+            return decapitalize(name.substring(3));
+        }
+        if (name.startsWith("is") && name.length() > 2 && (type == Boolean.TYPE || type == Boolean.class)) {
+            return decapitalize(name.substring(2));
+        }
+        return null;
+    }
+
+    private static String setterName(Method method) {
+        if (method.getParameterTypes().length != 1) return null;
+
+        String name = method.getName();
+        if (name.startsWith("set") && name.length() > 3) return decapitalize(name.substring(3));
+        return null;
+    }
+
+    /**
+     * Same rules as {@link java.beans.Introspector#decapitalize(String)}:
+     * "Name" is "name", but "URL" stays "URL".
+     */
+    private static String decapitalize(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+}
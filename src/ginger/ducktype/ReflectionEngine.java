@@ -0,0 +1,72 @@
+package ginger.ducktype;
+
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Engine that executes methods with plain old
+ * {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * It's slower than {@link MethodHandleEngine}, but it's the most predictable
+ * one. Use it if you suspect the other engines are misbehaving.
+ * </p>
+ * <p>
+ * The {@link Lookup} says which methods we are allowed to call. DuckType gives
+ * its own lookup, so we can call exactly the same methods it could call by
+ * itself.
+ * </p>
+ */
+public class ReflectionEngine implements InvocationEngine {
+    private final Lookup lookup;
+
+    public ReflectionEngine(Lookup lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Invoker invokerFor(Method method) throws IllegalAccessException {
+        /*
+         * Reflection checks the access against whoever calls "invoke", and
+         * that's us, not the one who gave the lookup. So we check it with the
+         * lookup ourselves and tell reflection not to bother. On a copy of
+         * the method, as the one we got is shared by the caches.
+         */
+        if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            lookup.unreflect(method);
+            Method copy = copyOf(method);
+            if (!copy.trySetAccessible()) throw new IllegalAccessException("Can't access " + method);
+            return new ReflectionInvoker(copy);
+        }
+        return new ReflectionInvoker(method);
+    }
+
+    /**
+     * Every time reflection gives a method, it's a brand new object.
+     */
+    private Method copyOf(Method method) {
+        try {
+
+            return method.getDeclaringClass().getDeclaredMethod(method.getName(), method.getParameterTypes());
+
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class ReflectionInvoker implements Invoker {
+        private final Method method;
+
+        public ReflectionInvoker(Method method) {
+            this.method = method;
+        }
+
+        public Object invoke(Object target, Object... arguments) throws IllegalAccessException,
+                InvocationTargetException {
+            return method.invoke(target, arguments);
+        }
+    }
+}
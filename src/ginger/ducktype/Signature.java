@@ -0,0 +1,76 @@
+package ginger.ducktype;
+
+import java.util.Arrays;
+
+/**
+ * Everything DuckType needs to know to find a method: the type of the object,
+ * the method name and the types of the arguments.
+ * <p>
+ * It's immutable and can be used as a key in maps.
+ * </p>
+ */
+public class Signature {
+    private final Class<?> objectType;
+    private final String methodName;
+    private final Class<?>[] argumentTypes;
+    private final int hashCode;
+
+    public Signature(Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        this.objectType = objectType;
+        this.methodName = methodName;
+        // Whoever gave us the array can change it later
+        this.argumentTypes = argumentTypes.clone();
+        this.hashCode = hashCodeOf(objectType, methodName, argumentTypes);
+    }
+
+    /**
+     * The hash code a Signature with these parts would have, without building
+     * it.
+     */
+    static int hashCodeOf(Class<?> objectType, String methodName, Class<?>[] argumentTypes) {
+        return 31 * (31 * objectType.hashCode() + methodName.hashCode()) + Arrays.hashCode(argumentTypes);
+    }
+
+    public Class<?> getObjectType() {
+        return objectType;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public Class<?>[] getArgumentTypes() {
+        return argumentTypes.clone();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Signature)) return false;
+        Signature otherSignature = (Signature) other;
+        return hashCode == otherSignature.hashCode
+                && objectType == otherSignature.objectType
+                && methodName.equals(otherSignature.methodName)
+                && Arrays.equals(argumentTypes, otherSignature.argumentTypes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(objectType.getName());
+        result.append(".");
+        result.append(methodName);
+        result.append("(");
+        for (int i = 0; i < argumentTypes.length; i++) {
+            if (i > 0) result.append(", ");
+            result.append(argumentTypes[i].getName());
+        }
+        result.append(")");
+        return result.toString();
+    }
+}
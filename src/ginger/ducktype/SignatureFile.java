@@ -0,0 +1,147 @@
+package ginger.ducktype;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Reads and writes lists of {@link Signature}s, one per line, in the same
+ * format of {@link Signature#toString()}:
+ *
+ * <pre>
+ * # Comments and blank lines are fine
+ * java.lang.String.substring(int, int)
+ * java.util.ArrayList.add(java.lang.Object)
+ * </pre>
+ * <p>
+ * Good for saving the methods in cache when the application stops and loading
+ * them back when it starts, or for writing by hand the methods you know will
+ * be called. Lines that can't be read are skipped: classes that can't be
+ * found (or loaded) anymore were probably removed since the file was written,
+ * and one bad line shouldn't spoil the whole file.
+ * </p>
+ */
+public class SignatureFile {
+    private static final String ENCODING = "UTF-8";
+
+    private static final Map<String, Class<?>> primitives = new HashMap<String, Class<?>>();
+    static {
+        primitives.put("boolean", Boolean.TYPE);
+        primitives.put("char", Character.TYPE);
+        primitives.put("byte", Byte.TYPE);
+        primitives.put("short", Short.TYPE);
+        primitives.put("int", Integer.TYPE);
+        primitives.put("long", Long.TYPE);
+        primitives.put("float", Float.TYPE);
+        primitives.put("double", Double.TYPE);
+    }
+
+    /**
+     * Writes the signatures to the file, sorted, so two files can be compared.
+     */
+    public static void write(Collection<Signature> signatures, File file) throws IOException {
+        TreeSet<String> lines = new TreeSet<String>();
+        for (Signature signature : signatures) {
+            lines.add(signature.toString());
+        }
+
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), ENCODING));
+        try {
+            for (String line : lines) {
+                out.println(line);
+            }
+        } finally {
+            out.close();
+        }
+        if (out.checkError()) throw new IOException("Couldn't write " + file);
+    }
+
+    /**
+     * Reads the signatures in the file, finding classes with the context class
+     * loader.
+     */
+    public static List<Signature> read(File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), ENCODING);
+        try {
+            return read(reader, classLoader());
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the signatures, finding classes with the class loader given.
+     */
+    public static List<Signature> read(Reader reader, ClassLoader loader) throws IOException {
+        List<Signature> result = new ArrayList<Signature>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            try {
+                result.add(parse(line, loader));
+            } catch (ClassNotFoundException e) {
+                // Gone since the file was written, nothing to warm up
+            } catch (LinkageError e) {
+                // Still there, but it can't be loaded anymore
+            } catch (IllegalArgumentException e) {
+                // Not a signature, maybe a typo
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The opposite of {@link Signature#toString()}.
+     *
+     * @throws IllegalArgumentException
+     *             If it doesn't look like a signature.
+     */
+    public static Signature parse(String text, ClassLoader loader) throws ClassNotFoundException {
+        int open = text.indexOf('(');
+        int dot = text.lastIndexOf('.', open);
+        if (open < 0 || dot < 0 || !text.endsWith(")")) {
+            throw new IllegalArgumentException("Not a signature: " + text);
+        }
+
+        Class<?> objectType = classFor(text.substring(0, dot), loader);
+        String methodName = text.substring(dot + 1, open);
+
+        String arguments = text.substring(open + 1, text.length() - 1).trim();
+        List<Class<?>> argumentTypes = new ArrayList<Class<?>>();
+        if (!arguments.isEmpty()) {
+            for (String argument : arguments.split(",")) {
+                argumentTypes.add(classFor(argument.trim(), loader));
+            }
+        }
+
+        return new Signature(objectType, methodName, argumentTypes.toArray(new Class<?>[argumentTypes.size()]));
+    }
+
+    private static Class<?> classFor(String name, ClassLoader loader) throws ClassNotFoundException {
+        Class<?> primitive = primitives.get(name);
+        if (primitive != null) return primitive;
+
+        // No need to initialize it only to find its methods
+        return Class.forName(name, false, loader);
+    }
+
+    private static ClassLoader classLoader() {
+        ClassLoader result = Thread.currentThread().getContextClassLoader();
+        return result == null ? SignatureFile.class.getClassLoader() : result;
+    }
+}
@@ -1,7 +1,9 @@
 package ginger.ducktype;
 
 import java.lang.reflect.Method;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -15,28 +17,28 @@ import java.util.concurrent.ConcurrentHashMap;
  * </p>
  */
 public class SimpleMethodCache implements MethodCache {
-    private Map<String, Method> cache = new ConcurrentHashMap<String, Method>();
-    private int hitCount = 0;
-    private int missesCount = 0;
+    private Map<String, Entry> cache = new ConcurrentHashMap<String, Entry>();
+    private final StatsCounter stats = new StatsCounter();
 
     /**
      * {@inheritDoc}
      */
-    public void put(Method method, String objectType, String methodName, Class<?>... argumentTypes) {
-        cache.put(toKey(objectType, methodName, argumentTypes), method);
+    public void put(Method method, Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        cache.put(toKey(objectType, methodName, argumentTypes), new Entry(method, new Signature(objectType,
+                methodName, argumentTypes)));
     }
 
     /**
      * {@inheritDoc}
      */
-    public Method get(String objectType, String methodName, Class<?>... argumentTypes) {
-        Method result = cache.get(toKey(objectType, methodName, argumentTypes));
-        if (result == null) {
-            missesCount++;
-        } else {
-            hitCount++;
+    public Method get(Class<?> objectType, String methodName, Class<?>... argumentTypes) {
+        Entry entry = cache.get(toKey(objectType, methodName, argumentTypes));
+        if (entry == null) {
+            stats.recordMiss();
+            return null;
         }
-        return result;
+        stats.recordHit();
+        return entry.method;
     }
 
     /**
@@ -46,28 +48,27 @@ public class SimpleMethodCache implements MethodCache {
         cache.clear();
         /*
          * We can have a problem with concurrency here. Imagine we try to clear
-         * both fields when someone is simultaneously getting a method. The
-         * hitCount and missesCount can reflect a different number than the
-         * real. But... who cares? They should not be precise number, just
-         * informative hints. I don't want to implement synchronize here because
-         * we would have to implement it on the "get" method also.
+         * the counters when someone is simultaneously getting a method. That
+         * hit (or miss) can be counted before or after the reset. But... who
+         * cares? They are informative hints. I don't want to implement
+         * synchronize here because we would have to implement it on the "get"
+         * method also.
          */
-        hitCount = 0;
-        missesCount = 0;
+        stats.reset();
     }
 
     /**
      * {@inheritDoc}
      */
     public int hitCount() {
-        return hitCount;
+        return stats.hitCount();
     }
 
     /**
      * {@inheritDoc}
      */
     public int missesCount() {
-        return missesCount;
+        return stats.missCount();
     }
 
     /**
@@ -77,9 +78,34 @@ public class SimpleMethodCache implements MethodCache {
         return cache.size();
     }
 
-    private String toKey(String objectType, String methodName, Class<?>... argumentTypes) {
+    /**
+     * {@inheritDoc}
+     */
+    public void recordLoad(long loadTime) {
+        stats.recordLoad(loadTime);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public MethodCacheStats stats() {
+        return stats.snapshot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Set<Signature> signatures() {
+        Set<Signature> result = new HashSet<Signature>();
+        for (Entry entry : cache.values()) {
+            result.add(entry.signature);
+        }
+        return result;
+    }
+
+    private String toKey(Class<?> objectType, String methodName, Class<?>... argumentTypes) {
         StringBuilder result = new StringBuilder();
-        result.append(objectType);
+        result.append(objectType.getName());
         result.append("|");
         result.append(methodName);
         for (Class<?> clazz : argumentTypes) {
@@ -88,4 +114,18 @@ public class SimpleMethodCache implements MethodCache {
         }
         return result.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * The key is a string, so we keep the signature for
+     * {@link #signatures()}.
+     */
+    private static class Entry {
+        private final Method method;
+        private final Signature signature;
+
+        public Entry(Method method, Signature signature) {
+            this.method = method;
+            this.signature = signature;
+        }
+    }
+}
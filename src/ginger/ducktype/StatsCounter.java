@@ -0,0 +1,66 @@
+package ginger.ducktype;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters behind {@link MethodCacheStats}.
+ * <p>
+ * They are {@link LongAdder}s, so threads counting at the same time don't
+ * lose counts and don't fight for the same cache line. Reading them is a bit
+ * slower, but we read them a lot less than we write.
+ * </p>
+ */
+class StatsCounter {
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public void recordHit() {
+        hitCount.increment();
+    }
+
+    public void recordMiss() {
+        missCount.increment();
+    }
+
+    public void recordLoad(long loadTime) {
+        loadCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    public int hitCount() {
+        return (int) hitCount.sum();
+    }
+
+    public int missCount() {
+        return (int) missCount.sum();
+    }
+
+    public int evictionCount() {
+        return (int) evictionCount.sum();
+    }
+
+    /**
+     * Each number is exact at some moment while taking the snapshot. If other
+     * threads are using the cache at the same time, they can be a few counts
+     * apart from each other.
+     */
+    public MethodCacheStats snapshot() {
+        return new MethodCacheStats(hitCount.sum(), missCount.sum(), loadCount.sum(), totalLoadTime.sum(),
+                evictionCount.sum());
+    }
+
+    public void reset() {
+        hitCount.reset();
+        missCount.reset();
+        loadCount.reset();
+        totalLoadTime.reset();
+        evictionCount.reset();
+    }
+}
@@ -0,0 +1,46 @@
+package ginger.ducktype;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Carries what a method threw, through a method handle made by
+ * {@link #marking(MethodHandle)}.
+ * <p>
+ * Once a handle is adapted, a ClassCastException can come from a bad argument
+ * or from the method itself. Marking the handle before adapting it tells them
+ * apart: whatever the method throws arrives as a TargetException, with the
+ * original as its cause.
+ * </p>
+ */
+@SuppressWarnings("serial")
+public class TargetException extends RuntimeException {
+    private static final MethodHandle TARGET_FAILED;
+    static {
+        try {
+            TARGET_FAILED = MethodHandles.lookup().findStatic(TargetException.class, "targetFailed",
+                    MethodType.methodType(Object.class, Throwable.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private TargetException(Throwable cause) {
+        super(cause);
+    }
+
+    /**
+     * The same handle, throwing a TargetException for anything it throws.
+     */
+    public static MethodHandle marking(MethodHandle handle) {
+        MethodType type = handle.type();
+        MethodHandle failed = TARGET_FAILED.asType(MethodType.methodType(type.returnType(), Throwable.class));
+        return MethodHandles.catchException(handle, Throwable.class,
+                MethodHandles.dropArguments(failed, 1, type.parameterList()));
+    }
+
+    private static Object targetFailed(Throwable e) {
+        throw new TargetException(e);
+    }
+}
@@ -0,0 +1,81 @@
+package ginger.ducktype;
+
+/**
+ * Unboxes arguments for the classes {@link BytecodeEngine} generates, widening
+ * them the way the Java compiler does (an Integer goes to a long parameter,
+ * for instance). That's how {@link MethodIndex} finds methods.
+ * <p>
+ * It's public only because generated classes can live in any package. Just
+ * like reflection, it refuses anything that would need narrowing.
+ * </p>
+ */
+public final class Unboxing {
+
+    private Unboxing() {}
+
+    public static short toShort(Object value) {
+        if (value instanceof Short) return (Short) value;
+        if (value instanceof Byte) return (Byte) value;
+        throw mismatch(value, "short");
+    }
+
+    public static int toInt(Object value) {
+        if (value instanceof Integer) return (Integer) value;
+        if (value instanceof Short || value instanceof Byte) return ((Number) value).intValue();
+        if (value instanceof Character) return (Character) value;
+        throw mismatch(value, "int");
+    }
+
+    public static long toLong(Object value) {
+        if (value instanceof Long) return (Long) value;
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Character) return (Character) value;
+        throw mismatch(value, "long");
+    }
+
+    public static float toFloat(Object value) {
+        if (value instanceof Float) return (Float) value;
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).floatValue();
+        }
+        if (value instanceof Character) return (Character) value;
+        throw mismatch(value, "float");
+    }
+
+    public static double toDouble(Object value) {
+        if (value instanceof Double) return (Double) value;
+        if (value instanceof Float || value instanceof Long || value instanceof Integer || value instanceof Short
+                || value instanceof Byte) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Character) return (Character) value;
+        throw mismatch(value, "double");
+    }
+
+    /**
+     * True if the value can be passed to a parameter of that type, unboxing
+     * and widening it if needed.
+     */
+    static boolean fits(Class<?> type, Object value) {
+        if (!type.isPrimitive()) return value == null || type.isInstance(value);
+
+        if (type == Boolean.TYPE) return value instanceof Boolean;
+        if (type == Character.TYPE) return value instanceof Character;
+        if (type == Byte.TYPE) return value instanceof Byte;
+        if (type == Short.TYPE) return value instanceof Short || value instanceof Byte;
+
+        boolean integral = value instanceof Integer || value instanceof Short || value instanceof Byte
+                || value instanceof Character;
+        if (type == Integer.TYPE) return integral;
+        if (type == Long.TYPE) return integral || value instanceof Long;
+        if (type == Float.TYPE) return integral || value instanceof Long || value instanceof Float;
+        return integral || value instanceof Long || value instanceof Float || value instanceof Double;
+    }
+
+    private static RuntimeException mismatch(Object value, String type) {
+        if (value == null) return new NullPointerException("Can't unbox null to " + type);
+        return new ClassCastException("Can't unbox " + value.getClass().getName() + " to " + type);
+    }
+}
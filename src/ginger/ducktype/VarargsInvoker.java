@@ -0,0 +1,90 @@
+package ginger.ducktype;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Invoker for varargs methods: packs the variable arguments in an array
+ * before calling the method, the same way the Java compiler does.
+ * <p>
+ * If the arguments already end with an array for the varargs parameter (or a
+ * null), they are passed as they are. That's how {@link MethodIndex} finds
+ * them too.
+ * </p>
+ * <p>
+ * Calls that go through a method handle instead of an invoker (the
+ * primitive-specialized calls of prepared calls) pack them the same way, with
+ * {@link #packer(Method)}.
+ * </p>
+ */
+public class VarargsInvoker implements Invoker {
+    private static final MethodHandle PACK;
+    static {
+        try {
+            PACK = MethodHandles.lookup().findStatic(VarargsInvoker.class, "pack",
+                    MethodType.methodType(Object[].class, Object[].class, int.class, Class.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Invoker invoker;
+    private final int fixedCount;
+    private final Class<?> arrayType;
+
+    private VarargsInvoker(Method method, Invoker invoker) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        this.invoker = invoker;
+        this.fixedCount = parameterTypes.length - 1;
+        this.arrayType = parameterTypes[fixedCount];
+    }
+
+    /**
+     * Wraps the invoker if the method is varargs, otherwise it's fine as it
+     * is.
+     */
+    public static Invoker wrap(Method method, Invoker invoker) {
+        return method.isVarArgs() ? new VarargsInvoker(method, invoker) : invoker;
+    }
+
+    /**
+     * A handle that packs the arguments for the varargs method, taking and
+     * returning an Object[]. It's for those calling the method through a
+     * handle spread from an array, instead of through an invoker.
+     */
+    public static MethodHandle packer(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        int fixedCount = parameterTypes.length - 1;
+        return MethodHandles.insertArguments(PACK, 1, fixedCount, parameterTypes[fixedCount]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object invoke(Object target, Object... arguments) throws IllegalAccessException,
+            InvocationTargetException {
+        return invoker.invoke(target, pack(arguments, fixedCount, arrayType));
+    }
+
+    private static Object[] pack(Object[] arguments, int fixedCount, Class<?> arrayType) {
+        if (arguments.length == fixedCount + 1) {
+            Object last = arguments[fixedCount];
+            if (last == null || arrayType.isInstance(last)) return arguments;
+        }
+
+        Object varargs = Array.newInstance(arrayType.getComponentType(), arguments.length - fixedCount);
+        for (int i = fixedCount; i < arguments.length; i++) {
+            // Unboxes too, if it's an array of primitives
+            Array.set(varargs, i - fixedCount, arguments[i]);
+        }
+
+        Object[] result = new Object[fixedCount + 1];
+        System.arraycopy(arguments, 0, result, 0, fixedCount);
+        result[fixedCount] = varargs;
+        return result;
+    }
+}
@@ -0,0 +1,363 @@
+package ginger.seq;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A growable circular array, like {@link java.util.ArrayDeque}, that is also a
+ * {@link java.util.List}.
+ * <p>
+ * Elements live in an array used as a ring: the first one can be anywhere and
+ * the others follow it, wrapping around at the end. So adding or removing at
+ * both ends is O(1) (amortized, when it has to grow), and getting or setting
+ * by index is O(1) too. Inserting or removing in the middle moves the elements
+ * of the shorter side only.
+ * </p>
+ * <p>
+ * The capacity is always a power of two, so finding the slot of an index is a
+ * sum and a mask. Null elements are fine. It's not thread safe.
+ * </p>
+ */
+public class ArrayStorage<T> extends AbstractList<T> implements Storage<T>, RandomAccess {
+    private static final int MINIMUM_CAPACITY = 8;
+
+    private Object[] elements;
+    private int head;
+    private int size;
+
+    public ArrayStorage() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Room for <em>capacity</em> elements before growing.
+     */
+    public ArrayStorage(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Capacity can't be negative: " + capacity);
+        this.elements = new Object[capacityFor(capacity)];
+    }
+
+    public ArrayStorage(Collection<? extends T> objects) {
+        Object[] array = objects.toArray();
+        this.elements = new Object[capacityFor(array.length)];
+        System.arraycopy(array, 0, elements, 0, array.length);
+        this.size = array.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Storage<T> copy() {
+        return new ArrayStorage<T>(this);
+    }
+
+    // List
+
+    public T get(int index) {
+        checkIndex(index);
+        return elementAt(slot(index));
+    }
+
+    public T set(int index, T element) {
+        checkIndex(index);
+        int slot = slot(index);
+        T result = elementAt(slot);
+        elements[slot] = element;
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean add(T element) {
+        addLast(element);
+        return true;
+    }
+
+    public void add(int index, T element) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        if (index == size) {
+            addLast(element);
+            return;
+        }
+        if (index == 0) {
+            addFirst(element);
+            return;
+        }
+
+        ensureCapacity(size + 1);
+        if (index < size / 2) {
+            // The elements before it go one step back
+            head = (head - 1) & (elements.length - 1);
+            for (int i = 0; i < index; i++) {
+                elements[slot(i)] = elements[slot(i + 1)];
+            }
+        } else {
+            // The elements after it go one step forward
+            for (int i = size; i > index; i--) {
+                elements[slot(i)] = elements[slot(i - 1)];
+            }
+        }
+        elements[slot(index)] = element;
+        size++;
+        modCount++;
+    }
+
+    public T remove(int index) {
+        checkIndex(index);
+        T result = elementAt(slot(index));
+
+        if (index < size / 2) {
+            // The elements before it fill the hole
+            for (int i = index; i > 0; i--) {
+                elements[slot(i)] = elements[slot(i - 1)];
+            }
+            elements[head] = null;
+            head = (head + 1) & (elements.length - 1);
+        } else {
+            // The elements after it fill the hole
+            for (int i = index; i < size - 1; i++) {
+                elements[slot(i)] = elements[slot(i + 1)];
+            }
+            elements[slot(size - 1)] = null;
+        }
+        size--;
+        modCount++;
+        return result;
+    }
+
+    public int indexOf(Object object) {
+        for (int i = 0; i < size; i++) {
+            if (equal(object, elements[slot(i)])) return i;
+        }
+        return -1;
+    }
+
+    public int lastIndexOf(Object object) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (equal(object, elements[slot(i)])) return i;
+        }
+        return -1;
+    }
+
+    public boolean contains(Object object) {
+        return indexOf(object) >= 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            elements[slot(i)] = null;
+        }
+        head = 0;
+        size = 0;
+        modCount++;
+    }
+
+    public Object[] toArray() {
+        Object[] result = new Object[size];
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, result, 0, firstPart);
+        System.arraycopy(elements, 0, result, firstPart, size - firstPart);
+        return result;
+    }
+
+    // Deque
+
+    public void addFirst(T element) {
+        ensureCapacity(size + 1);
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = element;
+        size++;
+        modCount++;
+    }
+
+    public void addLast(T element) {
+        ensureCapacity(size + 1);
+        elements[slot(size)] = element;
+        size++;
+        modCount++;
+    }
+
+    public boolean offerFirst(T element) {
+        addFirst(element);
+        return true;
+    }
+
+    public boolean offerLast(T element) {
+        addLast(element);
+        return true;
+    }
+
+    public T removeFirst() {
+        if (size == 0) throw new NoSuchElementException();
+        return pollFirst();
+    }
+
+    public T removeLast() {
+        if (size == 0) throw new NoSuchElementException();
+        return pollLast();
+    }
+
+    public T pollFirst() {
+        if (size == 0) return null;
+
+        T result = elementAt(head);
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        modCount++;
+        return result;
+    }
+
+    public T pollLast() {
+        if (size == 0) return null;
+
+        int last = slot(size - 1);
+        T result = elementAt(last);
+        elements[last] = null;
+        size--;
+        modCount++;
+        return result;
+    }
+
+    public T getFirst() {
+        if (size == 0) throw new NoSuchElementException();
+        return elementAt(head);
+    }
+
+    public T getLast() {
+        if (size == 0) throw new NoSuchElementException();
+        return elementAt(slot(size - 1));
+    }
+
+    public T peekFirst() {
+        return size == 0 ? null : elementAt(head);
+    }
+
+    public T peekLast() {
+        return size == 0 ? null : elementAt(slot(size - 1));
+    }
+
+    public boolean removeFirstOccurrence(Object object) {
+        int index = indexOf(object);
+        if (index < 0) return false;
+
+        remove(index);
+        return true;
+    }
+
+    public boolean removeLastOccurrence(Object object) {
+        int index = lastIndexOf(object);
+        if (index < 0) return false;
+
+        remove(index);
+        return true;
+    }
+
+    public boolean offer(T element) {
+        return offerLast(element);
+    }
+
+    public T remove() {
+        return removeFirst();
+    }
+
+    public T poll() {
+        return pollFirst();
+    }
+
+    public T element() {
+        return getFirst();
+    }
+
+    public T peek() {
+        return peekFirst();
+    }
+
+    public void push(T element) {
+        addFirst(element);
+    }
+
+    public T pop() {
+        return removeFirst();
+    }
+
+    public Iterator<T> descendingIterator() {
+        return new DescendingIterator();
+    }
+
+    // Ring
+
+    private int slot(int index) {
+        return (head + index) & (elements.length - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int slot) {
+        return (T) elements[slot];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * Doubles the array until the elements fit, putting the first one back at
+     * the beginning.
+     */
+    private void ensureCapacity(int minimumCapacity) {
+        if (minimumCapacity <= elements.length) return;
+
+        Object[] grown = new Object[capacityFor(minimumCapacity)];
+        Object[] current = toArray();
+        System.arraycopy(current, 0, grown, 0, size);
+        elements = grown;
+        head = 0;
+    }
+
+    private static int capacityFor(int size) {
+        int result = MINIMUM_CAPACITY;
+        while (result < size) {
+            if (result >= 1 << 30) throw new OutOfMemoryError("Too many elements: " + size);
+            result <<= 1;
+        }
+        return result;
+    }
+
+    private static boolean equal(Object one, Object other) {
+        return one == null ? other == null : one.equals(other);
+    }
+
+    private class DescendingIterator implements Iterator<T> {
+        private int next = size - 1;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        public T next() {
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (next < 0) throw new NoSuchElementException();
+
+            last = next--;
+            return get(last);
+        }
+
+        public void remove() {
+            if (last < 0) throw new IllegalStateException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+
+            // Only the elements after it move, and we already went through them
+            ArrayStorage.this.remove(last);
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
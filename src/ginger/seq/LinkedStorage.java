@@ -0,0 +1,31 @@
+package ginger.seq;
+
+import java.util.Collection;
+import java.util.LinkedList;
+
+/**
+ * Good old {@link LinkedList} as a {@link Storage}. That's what Seq used to
+ * be backed by.
+ * <p>
+ * Indexed access is O(n) and each element costs a node, but inserting or
+ * removing through an iterator is O(1) anywhere.
+ * </p>
+ */
+@SuppressWarnings("serial")
+public class LinkedStorage<T> extends LinkedList<T> implements Storage<T> {
+
+    public LinkedStorage() {
+        super();
+    }
+
+    public LinkedStorage(Collection<? extends T> objects) {
+        super(objects);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Storage<T> copy() {
+        return new LinkedStorage<T>(this);
+    }
+}
@@ -0,0 +1,293 @@
+package ginger.seq;
+
+import ginger.Seq;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A lazy chain of operations over the elements of a Seq (or any Iterable).
+ * <p>
+ * Nothing happens until a terminal operation ({@link #toSeq()},
+ * {@link #join(CharSequence)}, {@link #reduce(Object, BinaryOperator)},
+ * {@link #forEach(Consumer)}). Then every element goes through all the
+ * operations at once, in a single pass, and there is no list in between. Only
+ * the result is built. Operations like {@link #take(int)} stop the pass as
+ * soon as they have what they need.
+ * </p>
+ *
+ * <pre>
+ * String names = people.filter(isAdult).map(toName).distinct().take(10).join();
+ * </pre>
+ * <p>
+ * A pipeline can run many times, every terminal operation goes through the
+ * source again.
+ * </p>
+ */
+public abstract class Pipeline<T> {
+
+    Pipeline() {
+    }
+
+    /**
+     * A pipeline that gives the elements of the source, as they are.
+     */
+    public static <T> Pipeline<T> from(final Iterable<T> source) {
+        return new Pipeline<T>() {
+            void run(Sink<? super T> sink) {
+                for (T element : source) {
+                    if (!sink.accept(element)) return;
+                }
+            }
+        };
+    }
+
+    /**
+     * Sends every element, in order, to the sink, until the sink says it had
+     * enough.
+     */
+    abstract void run(Sink<? super T> sink);
+
+    // Operations
+
+    /**
+     * Each element converted by the function.
+     */
+    public <R> Pipeline<R> map(final Function<? super T, ? extends R> function) {
+        final Pipeline<T> upstream = this;
+        return new Pipeline<R>() {
+            void run(final Sink<? super R> sink) {
+                upstream.run(new Sink<T>() {
+                    public boolean accept(T element) {
+                        return sink.accept(function.apply(element));
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Only the elements the predicate likes.
+     */
+    public Pipeline<T> filter(final Predicate<? super T> predicate) {
+        final Pipeline<T> upstream = this;
+        return new Pipeline<T>() {
+            void run(final Sink<? super T> sink) {
+                upstream.run(new Sink<T>() {
+                    public boolean accept(T element) {
+                        return !predicate.test(element) || sink.accept(element);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * The elements of the Iterables the function gives for each element, one
+     * after the other.
+     */
+    public <R> Pipeline<R> flatMap(final Function<? super T, ? extends Iterable<? extends R>> function) {
+        final Pipeline<T> upstream = this;
+        return new Pipeline<R>() {
+            void run(final Sink<? super R> sink) {
+                upstream.run(new Sink<T>() {
+                    public boolean accept(T element) {
+                        for (R each : function.apply(element)) {
+                            if (!sink.accept(each)) return false;
+                        }
+                        return true;
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * The first <em>count</em> elements, at most. The elements after them are
+     * not even read.
+     */
+    public Pipeline<T> take(final int count) {
+        final Pipeline<T> upstream = this;
+        return new Pipeline<T>() {
+            void run(final Sink<? super T> sink) {
+                if (count <= 0) return;
+
+                upstream.run(new Sink<T>() {
+                    private int taken = 0;
+
+                    public boolean accept(T element) {
+                        if (!sink.accept(element)) return false;
+                        return ++taken < count;
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Everything but the first <em>count</em> elements.
+     */
+    public Pipeline<T> drop(final int count) {
+        final Pipeline<T> upstream = this;
+        return new Pipeline<T>() {
+            void run(final Sink<? super T> sink) {
+                upstream.run(new Sink<T>() {
+                    private int dropped = 0;
+
+                    public boolean accept(T element) {
+                        if (dropped < count) {
+                            dropped++;
+                            return true;
+                        }
+                        return sink.accept(element);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * The elements up to (not including) the first one the predicate doesn't
+     * like.
+     */
+    public Pipeline<T> takeWhile(final Predicate<? super T> predicate) {
+        final Pipeline<T> upstream = this;
+        return new Pipeline<T>() {
+            void run(final Sink<? super T> sink) {
+                upstream.run(new Sink<T>() {
+                    public boolean accept(T element) {
+                        return predicate.test(element) && sink.accept(element);
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Each element only once (the first time it shows up), using
+     * <em>equals</em> and <em>hashCode</em>.
+     */
+    public Pipeline<T> distinct() {
+        final Pipeline<T> upstream = this;
+        return new Pipeline<T>() {
+            void run(final Sink<? super T> sink) {
+                upstream.run(new Sink<T>() {
+                    private final Set<T> seen = new HashSet<T>();
+
+                    public boolean accept(T element) {
+                        return !seen.add(element) || sink.accept(element);
+                    }
+                });
+            }
+        };
+    }
+
+    // Terminal operations
+
+    /**
+     * Runs the pipeline, collecting the elements in a new Seq.
+     */
+    public Seq<T> toSeq() {
+        final Seq<T> result = new Seq<T>();
+        run(new Sink<T>() {
+            public boolean accept(T element) {
+                result.add(element);
+                return true;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Same as {@link Seq#join()}.
+     */
+    public String join() {
+        return join(", ");
+    }
+
+    /**
+     * Same as {@link Seq#join(CharSequence)}, without building the Seq.
+     */
+    public String join(final CharSequence separator) {
+        final StringBuilder result = new StringBuilder();
+        run(new Sink<T>() {
+            private boolean first = true;
+
+            public boolean accept(T element) {
+                if (!first) result.append(separator);
+                result.append(String.valueOf(element));
+                first = false;
+                return true;
+            }
+        });
+        return result.toString();
+    }
+
+    /**
+     * Combines all elements, starting with <em>identity</em>:
+     * <code>operator(operator(identity, first), second)...</code>
+     */
+    public T reduce(T identity, final BinaryOperator<T> operator) {
+        final Reduction<T> reduction = new Reduction<T>(identity);
+        run(new Sink<T>() {
+            public boolean accept(T element) {
+                reduction.result = operator.apply(reduction.result, element);
+                return true;
+            }
+        });
+        return reduction.result;
+    }
+
+    /**
+     * Same as {@link #reduce(Object, BinaryOperator)}, starting with the first
+     * element. Null if there are no elements.
+     */
+    public T reduce(final BinaryOperator<T> operator) {
+        final Reduction<T> reduction = new Reduction<T>(null);
+        run(new Sink<T>() {
+            private boolean first = true;
+
+            public boolean accept(T element) {
+                reduction.result = first ? element : operator.apply(reduction.result, element);
+                first = false;
+                return true;
+            }
+        });
+        return reduction.result;
+    }
+
+    /**
+     * Runs the pipeline, giving each element to the consumer.
+     */
+    public void forEach(final Consumer<? super T> consumer) {
+        run(new Sink<T>() {
+            public boolean accept(T element) {
+                consumer.accept(element);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Where the elements go, one stage after the other.
+     */
+    interface Sink<T> {
+
+        /**
+         * @return False if no more elements are wanted.
+         */
+        boolean accept(T element);
+    }
+
+    private static class Reduction<T> {
+        private T result;
+
+        public Reduction(T result) {
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ginger.seq;
+
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Where a {@link ginger.Seq} keeps its elements: anything that is both a
+ * {@link List} and a {@link Deque}.
+ * <p>
+ * {@link ArrayStorage} is the default and the best choice most of the time.
+ * {@link LinkedStorage} is there for the (rare) case of lots of insertions and
+ * removals in the middle, through an iterator.
+ * </p>
+ */
+public interface Storage<T> extends List<T>, Deque<T> {
+
+    /**
+     * A new storage of the same kind, with the same elements.
+     */
+    public Storage<T> copy();
+}
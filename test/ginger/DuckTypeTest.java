@@ -5,13 +5,33 @@ import static ginger.DuckType.duck;
 import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import ginger.categories.SlowTest;
+import ginger.ducktype.BoundedMethodCache;
+import ginger.ducktype.BytecodeEngine;
+import ginger.ducktype.ClassValueMethodCache;
+import ginger.ducktype.DispatchStats;
+import ginger.ducktype.IdentityMethodCache;
+import ginger.ducktype.MethodCache;
+import ginger.ducktype.MethodCacheStats;
+import ginger.ducktype.Null;
+import ginger.ducktype.Signature;
+import ginger.ducktype.SignatureFile;
 
+import java.io.File;
+import java.io.StringReader;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -22,13 +42,13 @@ public class DuckTypeTest {
     public void shouldExecuteDirectMethodsWithNoArguments() throws Exception {
         assertEquals("test", new DuckType("Test").call("toLowerCase"));
         assertEquals("TEST", new DuckType("Test").call("toUpperCase"));
-        assertEquals(4, new DuckType("Test").call("length"));
+        assertEquals(4, (int) new DuckType("Test").call("length"));
     }
 
     @Test
     public void shouldExecuteDirectMethodsWithSimpleArguments()
             throws Exception {
-        assertEquals(0, new DuckType("test").call("compareTo", "test"));
+        assertEquals(0, (int) new DuckType("test").call("compareTo", "test"));
         assertEquals("testing", new DuckType("test").call("concat", "ing"));
     }
 
@@ -60,6 +80,517 @@ public class DuckTypeTest {
         assertEquals("st", new DuckType("Test").chain("substring", 1).call("substring", 1));
     }
 
+    @Test
+    public void shouldChooseTheMostSpecificMethod() throws Exception {
+        assertEquals("sequence", d(new Test1()).call("kind", "test"));
+        assertEquals("sequence", d(new Test1()).call("kind", new StringBuilder("test")));
+        assertEquals("object", d(new Test1()).call("kind", new Object()));
+
+        // Like the compiler, unboxing only if nothing else works
+        assertEquals("object", d(new Test1()).call("kind", 1));
+        assertEquals("int", d(new Test1()).call("kind", 1, 2));
+    }
+
+    @Test
+    public void unboxedArgumentsShouldWidenLikeTheCompilerDoes() throws Exception {
+        assertEquals(1L, (long) d(new Test1()).call("widen", 1));
+        assertEquals(97L, (long) d(new Test1()).call("widen", 'a'));
+        assertEquals("long", d(new Test1()).call("kind", 1L, 2));
+        assertEquals(3L, (long) DuckType.prepare(Test1.class, "widen", int.class).invoke(new Test1(), 3));
+
+        // No narrowing, though
+        assertFalse(d(new Test1()).respondsTo("widen", 1.0));
+    }
+
+    @Test
+    public void nullArgumentsShouldFindTheMostSpecificMethod() throws Exception {
+        assertEquals("sequence", d(new Test1()).call("kind", (Object) null));
+        assertEquals(false, d("Test").call("equals", (Object) null));
+        assertEquals("object", d(new Test1()).call("kind", new Object()));
+
+        // Nulls have their own place in cache
+        assertTrue(DuckType.getCache().get(Test1.class, "kind", Null.class) != null);
+    }
+
+    @Test
+    public void varargsShouldBePackedInAnArray() throws Exception {
+        assertEquals("a-b-c", d(new Test1()).call("join", "-", "a", "b", "c"));
+        assertEquals("a", d(new Test1()).call("join", "-", "a"));
+        assertEquals("", d(new Test1()).call("join", "-"));
+        assertEquals("a+b", d(new Test1()).call("join", "+", new String[] { "a", "b" }));
+        assertEquals("1 2", d("ignored").call("format", "%s %s", 1, 2));
+    }
+
+    @Test
+    public void respondsToShouldTellIfMethodExists() throws Exception {
+        assertTrue(d("Test").respondsTo("substring", 1));
+        assertTrue(d("Test").respondsTo("substring", 0, 1));
+        assertFalse(d("Test").respondsTo("substring", "1"));
+        assertFalse(d("Test").respondsTo("close"));
+        assertFalse(d(null).respondsTo("toString"));
+    }
+
+    @Test
+    public void callIfPresentShouldReturnNullForMissingMethods() throws Exception {
+        assertEquals("est", d("Test").callIfPresent("substring", 1));
+        assertNull(d("Test").callIfPresent("close"));
+
+        // Now it's remembered
+        assertTrue(DuckType.getMissingMethods().contains(String.class, "close"));
+        assertNull(d("Test").callIfPresent("close"));
+    }
+
+    @Test
+    public void missingMethodsShouldGoAwayWithTheCache() throws Exception {
+        assertNull(d("Test").callIfPresent("close"));
+        assertTrue(DuckType.getMissingMethods().contains(String.class, "close"));
+
+        DuckType.clearCache();
+        assertFalse(DuckType.getMissingMethods().contains(String.class, "close"));
+
+        DuckType.turnMethodCacheOff();
+        try {
+            assertNull(d("Test").callIfPresent("close"));
+            assertFalse(DuckType.getMissingMethods().contains(String.class, "close"));
+        } finally {
+            DuckType.turnMethodCacheOn();
+        }
+
+        assertNull(new DuckType("Test", new IdentityMethodCache()).callIfPresent("close"));
+        assertFalse(DuckType.getMissingMethods().contains(String.class, "close"));
+    }
+
+    @Test
+    public void missShouldTellWhichMethodWasNotFound() throws Exception {
+        try {
+            d("Test").call("quack", 1);
+            fail("There is no such method");
+        } catch (DuckType.NoSuchMethodException e) {
+            assertEquals("java.lang.String.quack(java.lang.Integer)", e.getMessage());
+            assertEquals(new Signature(String.class, "quack", Integer.class), e.getSignature());
+            assertTrue(e.getStackTrace().length > 0);
+        }
+    }
+
+    @Test
+    public void missesWithoutStackTracesShouldReuseTheException() throws Exception {
+        DuckType.turnMissStackTracesOff();
+        try {
+            DuckType.NoSuchMethodException first = null;
+            for (int i = 0; i < 2; i++) {
+                try {
+                    d("Test").call("waddle");
+                    fail("There is no such method");
+                } catch (DuckType.NoSuchMethodException e) {
+                    assertEquals(0, e.getStackTrace().length);
+                    if (first != null) assertTrue(first == e);
+                    first = e;
+                }
+            }
+        } finally {
+            DuckType.turnMissStackTracesOn();
+        }
+    }
+
+    @Test
+    public void preparedCallCanBeUsedOnManyObjects() throws Exception {
+        PreparedCall substring = DuckType.prepare(String.class, "substring", int.class);
+        assertEquals("est", substring.invoke("Test", 1));
+        assertEquals("ava", substring.invoke("Java", 1));
+
+        PreparedCall concat = DuckType.prepare(String.class, "concat", String.class);
+        assertEquals("testing", concat.invoke("test", "ing"));
+        assertNull(concat.invoke(null, "ing"));
+    }
+
+    @Test
+    public void primitiveCallsShouldReturnPrimitives() throws Exception {
+        assertEquals(4, d("Test").callInt("length"));
+        assertEquals(101, d("Test").callInt("charAt", 1));
+        assertEquals(3L, d(new Test1()).callLong("sum", 1, 2L));
+        assertEquals(2.5, d(2.5f).callDouble("floatValue"), 0.0);
+        assertTrue(d("Test").callBoolean("startsWith", "T"));
+        assertFalse(d("Test").callBoolean("isEmpty"));
+    }
+
+    @Test
+    public void primitiveCallsShouldPackVarargs() throws Exception {
+        assertEquals(2, d(new Test1()).callInt("count", "a", "b"));
+        assertEquals(0, d(new Test1()).callInt("count"));
+        assertTrue(d(new Test1()).callBoolean("contains", "b", "a", "b"));
+        assertFalse(d(new Test1()).callBoolean("contains", "b"));
+    }
+
+    @Test
+    public void primitiveCallsShouldFindVarargsLikeCallDoes() throws Exception {
+        assertEquals(3, d(new Test1()).callInt("count", (Object) new String[] { "a", "b", "c" }));
+        assertEquals(2, d(new Test1()).callInt("count", "a", null));
+
+        PreparedCall count = DuckType.prepare(Test1.class, "count", String.class, String.class, String.class);
+        assertEquals(3L, count.invokeLong(new Test1(), "a", "b", "c"));
+    }
+
+    @Test
+    public void preparedCallShouldTakePrimitiveArguments() throws Exception {
+        PreparedCall charAt = DuckType.prepare(String.class, "charAt", int.class);
+        assertEquals('e', charAt.invokeInt("Test", 1));
+        assertEquals(101L, charAt.invokeLong("Test", 1));
+
+        PreparedCall kind = DuckType.prepare(Test1.class, "kind", Object.class);
+        assertEquals("object", kind.invoke(new Test1(), 1));
+
+        PreparedCall valueOf = DuckType.prepare(Long.class, "valueOf", long.class);
+        assertEquals(42L, valueOf.invokeLong("ignored", 42L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void primitiveCallsShouldComplainAboutOtherReturnTypes() throws Exception {
+        DuckType.prepare(String.class, "toUpperCase").invokeInt("Test");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void preparedCallShouldComplainAboutWrongArguments() throws Exception {
+        DuckType.prepare(String.class, "substring", int.class).invoke("Test", "x");
+    }
+
+    @Test
+    public void primitiveCallsShouldReportFailuresLikeInvokeDoes() throws Exception {
+        PreparedCall charAt = DuckType.prepare(String.class, "charAt", int.class);
+        try {
+            charAt.invokeInt(new StringBuilder("Test"), 1);
+            fail("Wrong target");
+        } catch (IllegalArgumentException e) {
+            // That's it
+        }
+        try {
+            charAt.invokeInt("Test", "x", "y");
+            fail("Wrong arguments");
+        } catch (IllegalArgumentException e) {
+            // That's it
+        }
+        try {
+            charAt.invokeInt("Test", 10);
+            fail("Out of bounds");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof InvocationTargetException);
+            assertTrue(e.getCause().getCause() instanceof StringIndexOutOfBoundsException);
+        }
+    }
+
+    @Test
+    public void callSiteShouldRememberTheClassesItSees() throws Exception {
+        CallSite charAt = DuckType.callSite("charAt", int.class);
+        assertEquals('e', (char) charAt.<Character> call("Test", 1));
+        assertEquals('a', (char) charAt.<Character> call(new StringBuilder("Java"), 1));
+        assertEquals('s', (char) charAt.<Character> call("Test", 2));
+        assertNull(charAt.call(null, 1));
+
+        assertEquals(2, charAt.size());
+        assertFalse(charAt.isMegamorphic());
+    }
+
+    @Test
+    public void callSiteShouldGoMegamorphicWithTooManyClasses() throws Exception {
+        CallSite toString = DuckType.callSite("toString");
+        Object[] objects = { "Test", 1, 2L, 3.0, new Test1(), new Test2(), "Again", new StringBuilder("Java") };
+        for (Object object : objects) {
+            assertEquals(object.toString(), toString.call(object));
+        }
+
+        assertTrue(toString.isMegamorphic());
+        assertEquals(4, toString.size());
+    }
+
+    @Test
+    public void pathShouldCallTheWholeChain() throws Exception {
+        ChainedCall path = DuckType.path("toString", "trim", "length");
+
+        assertEquals(4, (int) path.<Integer> call(new StringBuilder(" Test ")));
+        assertEquals(5, (int) path.<Integer> call(new Test1()));
+        assertEquals(4, (int) path.<Integer> call("Test"));
+        assertNull(path.call(null));
+        assertNull(DuckType.path("nothing", "length").call(new Test1()));
+    }
+
+    @Test
+    public void propertiesShouldBeReadThroughGettersAndFields() throws Exception {
+        Bean bean = new Bean();
+        bean.setName("Duke");
+        bean.age = 27;
+
+        assertEquals("Duke", DuckType.get(bean, "name"));
+        assertEquals(27, (int) DuckType.<Integer> get(bean, "age"));
+        assertEquals(false, DuckType.get(bean, "active"));
+        assertNull(DuckType.get(null, "name"));
+    }
+
+    @Test
+    public void propertiesShouldBeWrittenThroughSettersAndFields() throws Exception {
+        Bean bean = new Bean();
+        DuckType.set(bean, "name", "Duke");
+        DuckType.set(bean, "age", 27);
+        DuckType.set(bean, "active", true);
+
+        assertEquals("Duke", bean.getName());
+        assertEquals(27, bean.age);
+        assertTrue(bean.isActive());
+    }
+
+    @Test(expected = DuckType.NoSuchMethodException.class)
+    public void readOnlyPropertiesCantBeWritten() throws Exception {
+        DuckType.set(new Bean(), "id", 1L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void propertiesShouldComplainAboutWrongValues() throws Exception {
+        DuckType.set(new Bean(), "name", 42);
+    }
+
+    @Test
+    public void callAllShouldCallTheMethodOnEveryObject() throws Exception {
+        List<Object> objects = new LinkedList<Object>();
+        objects.add("Test");
+        objects.add(null);
+        objects.add(new StringBuilder("Java"));
+        objects.add("Duck");
+
+        Seq<Object> results = DuckType.callAll(objects, "charAt", 1);
+        assertEquals(Seq.<Object> s('e', null, 'a', 'u'), results);
+    }
+
+    @Test
+    public void callAllInParallelShouldKeepTheOrder() throws Exception {
+        Seq<Object> objects = new Seq<Object>();
+        for (int i = 0; i < 10000; i++) {
+            objects.add(i % 2 == 0 ? (Object) ("" + i) : new StringBuilder("" + i));
+        }
+
+        Seq<Integer> lengths = objects.invokeEachInParallel("length");
+        assertEquals(10000, lengths.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(("" + i).length(), (int) lengths.get(i));
+        }
+    }
+
+    @Test
+    public void cacheShouldFindMethodsByClassNameAndArguments() throws Exception {
+        IdentityMethodCache cache = new IdentityMethodCache();
+        Method substring = String.class.getMethod("substring", int.class);
+
+        cache.put(substring, String.class, "substring", Integer.class);
+
+        assertEquals(substring, cache.get(String.class, "substring", Integer.class));
+        assertNull(cache.get(String.class, "substring", Long.class));
+        assertNull(cache.get(String.class, "substring"));
+        assertNull(cache.get(StringBuilder.class, "substring", Integer.class));
+        assertEquals(1, cache.hitCount());
+        assertEquals(3, cache.missesCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void classValueCacheShouldKeepMethodsByClass() throws Exception {
+        ClassValueMethodCache cache = new ClassValueMethodCache();
+        Method substring = String.class.getMethod("substring", int.class);
+
+        cache.put(substring, String.class, "substring", Integer.class);
+
+        assertEquals(substring, cache.get(String.class, "substring", Integer.class));
+        assertNull(cache.get(StringBuilder.class, "substring", Integer.class));
+        assertEquals(1, cache.size());
+
+        cache.clear();
+        assertNull(cache.get(String.class, "substring", Integer.class));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void boundedCacheShouldKeepThePopularMethods() throws Exception {
+        BoundedMethodCache cache = new BoundedMethodCache(1);
+        Method substring = String.class.getMethod("substring", int.class);
+        Method concat = String.class.getMethod("concat", String.class);
+
+        cache.put(substring, String.class, "substring", Integer.class);
+        cache.get(String.class, "substring", Integer.class);
+        cache.get(String.class, "substring", Integer.class);
+
+        // Asked only once, it's not worth it
+        cache.get(String.class, "concat", String.class);
+        cache.put(concat, String.class, "concat", String.class);
+        assertEquals(substring, cache.get(String.class, "substring", Integer.class));
+        assertEquals(0, cache.evictionCount());
+
+        // Now it's more popular
+        for (int i = 0; i < 5; i++) {
+            cache.get(String.class, "concat", String.class);
+        }
+        cache.put(concat, String.class, "concat", String.class);
+        assertEquals(concat, cache.get(String.class, "concat", String.class));
+        assertNull(cache.get(String.class, "substring", Integer.class));
+        assertEquals(1, cache.evictionCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boundedCacheShouldHaveRoomForSomething() throws Exception {
+        new BoundedMethodCache(0);
+    }
+
+    @Test
+    public void boundedCacheShouldExpireMethodsNotUsed() throws Exception {
+        BoundedMethodCache cache = new BoundedMethodCache(10, 1, TimeUnit.NANOSECONDS);
+        Method substring = String.class.getMethod("substring", int.class);
+
+        cache.put(substring, String.class, "substring", Integer.class);
+        Thread.sleep(1);
+
+        assertNull(cache.get(String.class, "substring", Integer.class));
+        assertEquals(1, cache.evictionCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void cacheStatsShouldCountHitsMissesAndLoads() throws Exception {
+        IdentityMethodCache cache = new IdentityMethodCache();
+        new DuckType("Test", cache).call("substring", 1);
+        new DuckType("Test", cache).call("substring", 1);
+        new DuckType("Test", cache).call("substring", 1);
+
+        MethodCacheStats stats = cache.stats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.loadCount());
+        assertTrue(stats.averageLoadPenalty() > 0);
+    }
+
+    @Test
+    public void cacheStatsShouldNotLoseCountsBetweenThreads() throws Exception {
+        final IdentityMethodCache cache = new IdentityMethodCache();
+        cache.put(String.class.getMethod("length"), String.class, "length");
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        cache.get(String.class, "length");
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000, cache.stats().hitCount());
+    }
+
+    @Test
+    public void dispatchStatsShouldTellWhereTheTimeGoes() throws Exception {
+        DispatchStats stats = new DispatchStats();
+        MethodCache cache = new IdentityMethodCache();
+        DuckType.useDispatchListener(stats);
+        try {
+            for (int i = 0; i < 3; i++) {
+                new DuckType("Test", cache).call("length");
+            }
+            new DuckType("Test", cache).call("isEmpty");
+
+            Signature length = new Signature(String.class, "length");
+            assertEquals(3L, (long) stats.callCounts().get(length));
+            assertEquals(length, stats.hottest(1).get(0).getKey());
+            assertEquals(4, stats.invokeLatency().count());
+            assertEquals(4, stats.lookupLatency().count());
+            assertEquals(2, stats.slowestResolutions().size());
+        } finally {
+            DuckType.useDispatchListener(null);
+        }
+    }
+
+    @Test
+    public void preloadShouldFillTheCache() throws Exception {
+        DuckType.useCache(new IdentityMethodCache());
+        try {
+            List<Signature> signatures = new LinkedList<Signature>();
+            signatures.add(new Signature(String.class, "substring", int.class, int.class));
+            signatures.add(new Signature(StringBuilder.class, "append", String.class));
+            signatures.add(new Signature(String.class, "quack"));
+
+            assertEquals(2, DuckType.preload(signatures));
+            assertEquals(2, DuckType.getCache().size());
+            assertTrue(DuckType.getMissingMethods().contains(String.class, "quack"));
+        } finally {
+            DuckType.turnMethodCacheOn();
+        }
+    }
+
+    @Test
+    public void warmMethodsShouldSurviveARestart() throws Exception {
+        File file = File.createTempFile("ducktype", ".warm");
+        try {
+            DuckType.useCache(new IdentityMethodCache());
+            d("Test").call("substring", 1, 2);
+            d(new Test1()).call("sum", 1, 2L);
+            DuckType.saveWarmMethods(file);
+
+            // "Restart"
+            DuckType.useCache(new ClassValueMethodCache());
+            assertEquals(2, DuckType.loadWarmMethods(file));
+            assertEquals(2, DuckType.getCache().signatures().size());
+            assertTrue(DuckType.getCache().signatures().contains(
+                    SignatureFile.parse("java.lang.String.substring(java.lang.Integer, java.lang.Integer)",
+                                        getClass().getClassLoader())));
+        } finally {
+            DuckType.turnMethodCacheOn();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void signatureFileShouldSkipBadLines() throws Exception {
+        String text = "java.lang.String.substring(int)\n" + "not a signature\n"
+                + "com.example.Gone.quack(java.lang.String)\n" + "java.lang.String.concat(java.lang.String)\n";
+        List<Signature> signatures = SignatureFile.read(new StringReader(text), getClass().getClassLoader());
+
+        assertEquals(2, signatures.size());
+        assertEquals(new Signature(String.class, "concat", String.class), signatures.get(1));
+    }
+
+    @Test
+    public void newCacheEngineShouldBeWarmedByTheOldOne() throws Exception {
+        MethodCache previous = DuckType.getCache();
+        try {
+            IdentityMethodCache oldCache = new IdentityMethodCache();
+            DuckType.useCache(oldCache);
+            d("Test").call("substring", 1);
+            d("Test").call("concat", "ing");
+
+            IdentityMethodCache newCache = new IdentityMethodCache();
+            DuckType.useCache(newCache);
+            d("Test").call("substring", 1);
+
+            // Found in the old one, no need to look for it
+            assertEquals(1, oldCache.hitCount());
+            assertEquals(0, newCache.stats().loadCount());
+            assertEquals(1, newCache.size());
+        } finally {
+            DuckType.useCache(previous);
+        }
+    }
+
+    @Test
+    public void scopedCacheEngineShouldNotTouchTheDefaultOne() throws Exception {
+        IdentityMethodCache scoped = new IdentityMethodCache();
+        int defaultSize = DuckType.getCache().size();
+
+        assertEquals("st", new DuckType("Test", scoped).chain("substring", 1).call("substring", 1));
+
+        assertEquals(1, scoped.size());
+        assertEquals(1, scoped.hitCount());
+        assertEquals(defaultSize, DuckType.getCache().size());
+    }
+
     @Test
     public void bugShouldNotConfuseMethodsWithSameSignatureInDifferentObjects()
             throws Exception {
@@ -72,6 +603,96 @@ public class DuckTypeTest {
         }
     }
 
+    @Test
+    public void reflectionAndMethodHandlesShouldGiveSameResults() throws Exception {
+        try {
+            DuckType.turnMethodHandlesOff();
+            assertTrue(DuckType.isMethodHandlesOff());
+            assertEquals("T", d("Test").call("substring", 0, 1));
+            assertEquals("Test1", d(new Test1()).call("toString"));
+
+            DuckType.turnMethodHandlesOn();
+            assertTrue(DuckType.isMethodHandlesOn());
+            assertEquals("T", d("Test").call("substring", 0, 1));
+            assertEquals("Test1", d(new Test1()).call("toString"));
+            assertEquals("1", d("ignored").call("valueOf", 1));
+        } finally {
+            DuckType.turnMethodHandlesOn();
+        }
+    }
+
+    @Test
+    public void bytecodeGenerationShouldGiveSameResults() throws Exception {
+        try {
+            DuckType.turnBytecodeGenerationOn();
+            assertTrue(DuckType.isBytecodeGenerationOn());
+
+            // Closed package, primitives in and out
+            assertEquals("T", d("Test").call("substring", 0, 1));
+            assertEquals(4, (int) d("Test").call("length"));
+            assertEquals(true, d("Test").call("startsWith", "Te"));
+
+            // Static, interface and long arguments
+            assertEquals("1", d("ignored").call("valueOf", 1L));
+            assertEquals('e', (char) d((CharSequence) "Test").call("charAt", 1));
+
+            // Non public class
+            assertEquals("Test1", d(new Test1()).call("toString"));
+            assertEquals(3L, (long) d(new Test1()).call("sum", 1, 2L));
+            assertNull(d(new Test1()).call("nothing"));
+
+            // Unboxing and widening
+            assertEquals(97L, (long) d(new Test1()).call("widen", 'a'));
+        } finally {
+            DuckType.turnMethodHandlesOn();
+        }
+    }
+
+    @Test
+    public void bytecodeGenerationShouldComplainAboutWrongArguments() throws Exception {
+        BytecodeEngine engine = new BytecodeEngine(MethodHandles.lookup());
+        Method substring = String.class.getMethod("substring", int.class);
+        assertTrue(engine.isGenerated(substring));
+
+        Object[][] wrongArguments = { { "x" }, { null }, {} };
+        for (Object[] arguments : wrongArguments) {
+            try {
+                engine.invokerFor(substring).invoke("Test", arguments);
+                fail("Wrong arguments");
+            } catch (IllegalArgumentException e) {
+                // That's it
+            }
+        }
+
+        // Not the arguments fault, the method's
+        try {
+            engine.invokerFor(substring).invoke("Test", 10);
+            fail("Out of bounds");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof StringIndexOutOfBoundsException);
+        }
+    }
+
+    @Test
+    public void bytecodeGenerationShouldFallBackForOtherClassLoaders() throws Exception {
+        URL classes = Plugin.class.getProtectionDomain().getCodeSource().getLocation();
+        URLClassLoader loader = new URLClassLoader(new URL[] { classes }, null);
+        try {
+            Class<?> pluginClass = loader.loadClass(Plugin.class.getName());
+            assertTrue(pluginClass != Plugin.class);
+
+            BytecodeEngine engine = new BytecodeEngine(MethodHandles.lookup());
+            Method name = pluginClass.getMethod("name");
+            assertFalse(engine.isGenerated(name));
+            assertEquals("plugin", engine.invokerFor(name).invoke(pluginClass.getConstructor().newInstance()));
+
+            // Same class, our own loader
+            assertTrue(engine.isGenerated(Plugin.class.getMethod("name")));
+        } finally {
+            loader.close();
+        }
+    }
+
     /**
      * Slow test.
      */
@@ -121,10 +742,128 @@ public class DuckTypeTest {
                    elapsedNoCacheTime / elapsedCachedTime > timesFaster);
     }
 
+    /**
+     * Slow test.
+     */
+    @Test
+    @Category(SlowTest.class)
+    public void preparedCallShouldMakeDifference() throws Exception {
+        int subjectSize = 100000;
+
+        List<String> testSubject = new LinkedList<String>();
+        for (int i = 0; i < subjectSize; i++) {
+            testSubject.add(format("test %05d", i));
+        }
+
+        // Warm up, so both start with a hot cache
+        DuckType.turnMethodCacheOn();
+        PreparedCall substring = DuckType.prepare(String.class, "substring", int.class, int.class);
+        for (String string : testSubject) {
+            new DuckType(string).call("substring", 6, 10);
+            substring.invoke(string, 6, 10);
+        }
+
+        double startCachedTime = currentTimeMillis();
+        // Caching
+        for (String string : testSubject) {
+            new DuckType(string).call("substring", 6, 10);
+        }
+        double elapsedCachedTime = currentTimeMillis() - startCachedTime;
+
+        double startPreparedTime = currentTimeMillis();
+        // Prepared
+        for (String string : testSubject) {
+            substring.invoke(string, 6, 10);
+        }
+        double elapsedPreparedTime = currentTimeMillis() - startPreparedTime;
+
+        System.out.println(format("Time cached  : %4.0f", elapsedCachedTime));
+        System.out.println(format("Time prepared: %4.0f", elapsedPreparedTime));
+        System.out.println(format("%.1fx faster than cached", elapsedCachedTime / elapsedPreparedTime));
+
+        assertTrue("Prepared should be faster than cached", elapsedPreparedTime < elapsedCachedTime);
+    }
+
     private static class Test1 {
         public String toString() {
             return "Test1";
         }
+
+        public long sum(int a, long b) {
+            return a + b;
+        }
+
+        public void nothing() {
+        }
+
+        public String kind(Object object) {
+            return "object";
+        }
+
+        public String kind(CharSequence sequence) {
+            return "sequence";
+        }
+
+        public String kind(int a, int b) {
+            return "int";
+        }
+
+        public String kind(long a, long b) {
+            return "long";
+        }
+
+        public long widen(long value) {
+            return value;
+        }
+
+        public int count(String... parts) {
+            return parts.length;
+        }
+
+        public boolean contains(String part, String... parts) {
+            for (String each : parts) {
+                if (each.equals(part)) return true;
+            }
+            return false;
+        }
+
+        public String join(String separator, String... parts) {
+            StringBuilder result = new StringBuilder();
+            for (String part : parts) {
+                if (result.length() > 0) result.append(separator);
+                result.append(part);
+            }
+            return result.toString();
+        }
+    }
+
+    private static class Bean {
+        public int age;
+        public final long id = 42;
+        private String name;
+        private boolean active;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+    }
+
+    public static class Plugin {
+        public String name() {
+            return "plugin";
+        }
     }
 
     private static class Test2 {
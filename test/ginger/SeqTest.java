@@ -1,13 +1,41 @@
 package ginger;
 
+import static ginger.DoubleSeq.doubles;
+import static ginger.IntSeq.ints;
+import static ginger.LongSeq.longs;
+import static ginger.PersistentSeq.persistent;
 import static ginger.Seq.s;
 import static ginger.Seq.Pair.p;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import ginger.seq.LinkedStorage;
+import ginger.seq.Pipeline;
+
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 import org.junit.Test;
 
@@ -119,6 +147,424 @@ public class SeqTest {
         assertEquals(s(3, 2, 1), seq);
     }
     
+    @Test
+    public void arrayStorageBehavesLikeALinkedList() {
+        Random random = new Random(42);
+        Seq<Integer> seq = s();
+        LinkedList<Integer> expected = new LinkedList<Integer>();
+
+        // Lots of operations at both ends and in the middle, so the ring wraps around and grows
+        for (int i = 0; i < 5000; i++) {
+            int size = expected.size();
+            int index = size == 0 ? 0 : random.nextInt(size);
+            switch (random.nextInt(8)) {
+            case 0:
+                seq.addFirst(i);
+                expected.addFirst(i);
+                break;
+            case 1:
+                seq.addLast(i);
+                expected.addLast(i);
+                break;
+            case 2:
+                seq.add(index, i);
+                expected.add(index, i);
+                break;
+            case 3:
+                assertEquals(expected.pollFirst(), seq.pollFirst());
+                break;
+            case 4:
+                assertEquals(expected.pollLast(), seq.pollLast());
+                break;
+            case 5:
+                if (size > 0) assertEquals(expected.remove(index), seq.remove(index));
+                break;
+            case 6:
+                if (size > 0) assertEquals(expected.set(index, -i), seq.set(index, -i));
+                break;
+            default:
+                if (size > 0) assertEquals(expected.get(index), seq.get(index));
+            }
+        }
+
+        assertEquals(expected, seq);
+        assertEquals(expected.size(), seq.size());
+        assertEquals(expected.peekLast(), seq.peekLast());
+    }
+
+    @Test
+    public void arrayStorageIteratesBothWays() {
+        Seq<Integer> seq = s(3, 4, 5);
+        seq.prepend(2).prepend(1);
+
+        List<Integer> backwards = new LinkedList<Integer>();
+        Iterator<Integer> descending = seq.descendingIterator();
+        while (descending.hasNext()) {
+            Integer element = descending.next();
+            backwards.add(element);
+            if (element % 2 == 0) descending.remove();
+        }
+
+        assertEquals(Arrays.asList(5, 4, 3, 2, 1), backwards);
+        assertEquals(s(1, 3, 5), seq);
+        assertEquals(1, seq.indexOf(3));
+        assertEquals(s(3, 5), seq.subList(1, 3));
+    }
+
+    @Test
+    public void storageCanBeChosenAtConstruction() {
+        Seq<String> seq = new Seq<String>(new LinkedStorage<String>());
+        seq.append("b").prepend("a").append("c");
+
+        assertEquals(s("a", "b", "c"), seq);
+        assertEquals("a, b and c", seq.join(", ", " and "));
+        assertEquals(s("a", "b", "c"), seq.clone());
+    }
+
+    @Test
+    public void invokeEachCallsTheMethodOnEveryElement() {
+        Seq<String> words = s("duck", "type");
+
+        assertEquals(s("DUCK", "TYPE"), words.invokeEach("toUpperCase"));
+        assertEquals(s(true, false), words.invokeEach("startsWith", "d"));
+    }
+
+    @Test
+    public void pipelineRunsOnlyOnTerminalOperations() {
+        final List<Integer> seen = new LinkedList<Integer>();
+        Pipeline<Integer> squares = s(1, 2, 3, 4, 5, 6).map(new Function<Integer, Integer>() {
+            public Integer apply(Integer n) {
+                seen.add(n);
+                return n * n;
+            }
+        });
+        assertEquals(0, seen.size());
+
+        // One pass, stopping as soon as "take" has enough
+        assertEquals(s(1, 4, 9), squares.take(3).toSeq());
+        assertEquals(Arrays.asList(1, 2, 3), seen);
+
+        // Can run again
+        assertEquals("25, 36", squares.drop(4).join());
+    }
+
+    @Test
+    public void pipelineChainsOperations() {
+        Predicate<Integer> even = new Predicate<Integer>() {
+            public boolean test(Integer n) {
+                return n % 2 == 0;
+            }
+        };
+        Predicate<Integer> small = new Predicate<Integer>() {
+            public boolean test(Integer n) {
+                return n < 8;
+            }
+        };
+        Function<Integer, Iterable<Integer>> twice = new Function<Integer, Iterable<Integer>>() {
+            public Iterable<Integer> apply(Integer n) {
+                return s(n, n);
+            }
+        };
+        BinaryOperator<Integer> plus = new BinaryOperator<Integer>() {
+            public Integer apply(Integer a, Integer b) {
+                return a + b;
+            }
+        };
+        Seq<Integer> numbers = s(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+        assertEquals(s(2, 2, 4, 4), numbers.filter(even).flatMap(twice).takeWhile(small).take(4).toSeq());
+        assertEquals(s(2, 4, 6), numbers.flatMap(twice).filter(even).distinct().takeWhile(small).toSeq());
+        assertEquals(Integer.valueOf(30), numbers.filter(even).reduce(plus));
+        assertEquals(Integer.valueOf(100), numbers.drop(10).reduce(100, plus));
+        assertEquals(null, numbers.drop(10).reduce(plus));
+        assertEquals("", numbers.take(0).join());
+        assertEquals("1 2 3", numbers.takeWhile(new Predicate<Integer>() {
+            public boolean test(Integer n) {
+                return n <= 3;
+            }
+        }).join(" "));
+
+        final StringBuilder out = new StringBuilder();
+        numbers.drop(7).forEach(new Consumer<Integer>() {
+            public void accept(Integer n) {
+                out.append(n);
+            }
+        });
+        assertEquals("8910", out.toString());
+    }
+
+    @Test
+    public void parallelOperationsKeepTheOrder() {
+        Seq<Integer> numbers = new Seq<Integer>();
+        for (int i = 0; i < 100000; i++) {
+            numbers.add(i);
+        }
+        Seq<Integer> linkedNumbers = new Seq<Integer>(new LinkedStorage<Integer>());
+        linkedNumbers.addAll(numbers);
+
+        for (Seq<Integer> seq : Arrays.asList(numbers, linkedNumbers)) {
+            Seq<Long> doubled = seq.parallelMap(new Function<Integer, Long>() {
+                public Long apply(Integer n) {
+                    return 2L * n;
+                }
+            });
+            assertEquals(seq.size(), doubled.size());
+            for (int i = 0; i < doubled.size(); i++) {
+                assertEquals(Long.valueOf(2L * i), doubled.get(i));
+            }
+
+            Seq<Integer> multiplesOf7 = seq.parallelFilter(new Predicate<Integer>() {
+                public boolean test(Integer n) {
+                    return n % 7 == 0;
+                }
+            });
+            assertEquals(14286, multiplesOf7.size());
+            for (int i = 0; i < multiplesOf7.size(); i++) {
+                assertEquals(Integer.valueOf(7 * i), multiplesOf7.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void parallelReduceAndForEachSeeEveryElement() {
+        BinaryOperator<String> concat = new BinaryOperator<String>() {
+            public String apply(String a, String b) {
+                return a + b;
+            }
+        };
+        Seq<String> letters = new Seq<String>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            char letter = (char) ('a' + i % 26);
+            letters.add(String.valueOf(letter));
+            expected.append(letter);
+        }
+
+        // Associative, but not commutative: the order must be kept
+        assertEquals(expected.toString(), letters.parallelReduce("", concat));
+        assertEquals(expected.toString(), letters.parallelReduce(concat));
+        assertEquals(null, new Seq<String>().parallelReduce(concat));
+        assertEquals("", new Seq<String>().parallelReduce("", concat));
+
+        final AtomicInteger count = new AtomicInteger();
+        letters.parallelForEach(new Consumer<String>() {
+            public void accept(String letter) {
+                count.incrementAndGet();
+            }
+        });
+        assertEquals(5000, count.get());
+    }
+
+    @Test
+    public void parallelOperationsRunInThePoolChosen() {
+        ForkJoinPool original = Seq.getPool();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Seq.usePool(pool);
+            final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+            Seq<Integer> numbers = new Seq<Integer>();
+            for (int i = 0; i < 10000; i++) {
+                numbers.add(i);
+            }
+
+            numbers.parallelForEach(new Consumer<Integer>() {
+                public void accept(Integer n) {
+                    threads.add(Thread.currentThread());
+                }
+            });
+
+            for (Thread thread : threads) {
+                assertEquals(pool, ((ForkJoinWorkerThread) thread).getPool());
+            }
+        } finally {
+            Seq.usePool(original);
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void spliteratorSplitsInBalancedHalves() {
+        Seq<Integer> numbers = s(1, 2, 3, 4, 5, 6, 7, 8, 9);
+        Spliterator<Integer> second = numbers.spliterator();
+        Spliterator<Integer> first = second.trySplit();
+
+        assertEquals(4, first.estimateSize());
+        assertEquals(5, second.estimateSize());
+        assertTrue(second.hasCharacteristics(Spliterator.SUBSIZED));
+
+        final Seq<Integer> seen = s();
+        Consumer<Integer> collect = new Consumer<Integer>() {
+            public void accept(Integer n) {
+                seen.add(n);
+            }
+        };
+        first.forEachRemaining(collect);
+        second.tryAdvance(collect);
+        second.forEachRemaining(collect);
+        assertEquals(numbers, seen);
+        assertFalse(second.tryAdvance(collect));
+    }
+
+    @Test
+    public void intSeqGrowsOnBothSides() {
+        IntSeq ints = ints();
+        LinkedList<Integer> expected = new LinkedList<Integer>();
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            if (random.nextBoolean()) {
+                ints.append(i);
+                expected.addLast(i);
+            } else {
+                ints.prepend(i);
+                expected.addFirst(i);
+            }
+        }
+
+        assertEquals(new Seq<Integer>(expected), ints.boxed());
+        assertEquals(expected.getFirst().intValue(), ints.getFirst());
+        assertEquals(expected.getLast().intValue(), ints.getLast());
+        assertEquals(ints, ints(ints.toArray()));
+
+        ints.appendAll(ints);
+        assertEquals(2000, ints.size());
+        assertEquals(ints.get(3), ints.get(1003));
+    }
+
+    @Test
+    public void intSeqHasNumericOperations() {
+        IntSeq ints = ints(5, -3, 9, 1).append(7).prepend(2);
+
+        assertEquals("2, 5, -3, 9, 1, 7", ints.join());
+        assertEquals(21, ints.sum());
+        assertEquals(-3, ints.min());
+        assertEquals(9, ints.max());
+        assertEquals(ints(-3, 1, 2, 5, 7, 9), ints.sort());
+        assertEquals(3, ints.binarySearch(5));
+        assertEquals(-2, ints.binarySearch(0));
+        assertEquals(-7, ints.binarySearch(10));
+        assertEquals(5, ints.set(3, 6));
+        assertEquals("[-3, 1, 2, 6, 7, 9]", ints.toString());
+        assertEquals(25, ints.stream().filter(new IntPredicate() {
+            public boolean test(int n) {
+                return n > 0;
+            }
+        }).sum());
+    }
+
+    @Test
+    public void primitiveSeqsConvertToAndFromSeq() {
+        Seq<String> words = s("duck", "type", "ginger");
+
+        IntSeq lengths = words.mapToInt(new ToIntFunction<String>() {
+            public int applyAsInt(String word) {
+                return word.length();
+            }
+        });
+        assertEquals(ints(4, 4, 6), lengths);
+        assertEquals(s("xxxx", "xxxx", "xxxxxx"), lengths.mapToObj(new IntFunction<String>() {
+            public String apply(int n) {
+                return "xxxxxx".substring(0, n);
+            }
+        }));
+
+        LongSeq longs = s(3L, 1L, 2L).mapToLong(new ToLongFunction<Long>() {
+            public long applyAsLong(Long n) {
+                return n * 10000000000L;
+            }
+        });
+        assertEquals(60000000000L, longs.sum());
+        assertEquals(longs(10000000000L, 20000000000L, 30000000000L), longs.sort());
+        assertEquals(1, longs.binarySearch(20000000000L));
+
+        DoubleSeq doubles = words.mapToDouble(new ToDoubleFunction<String>() {
+            public double applyAsDouble(String word) {
+                return word.length() / 2.0;
+            }
+        });
+        assertEquals(doubles(2, 2, 3), doubles);
+        assertEquals(7.0, doubles.sum(), 0.0);
+        assertEquals(3.0, doubles.prepend(-1.5).max(), 0.0);
+        assertEquals(-1.5, doubles.min(), 0.0);
+        assertEquals(s(-1.5, 2.0, 2.0, 3.0), doubles.boxed());
+    }
+
+    @Test
+    public void persistentSeqVersionsNeverChange() {
+        PersistentSeq<Integer> empty = persistent();
+        PersistentSeq<Integer> one = empty.append(1);
+        PersistentSeq<Integer> two = one.prepend(0);
+        PersistentSeq<Integer> changed = two.set(1, 5);
+
+        assertEquals(0, empty.size());
+        assertEquals(persistent(1), one);
+        assertEquals(persistent(0, 1), two);
+        assertEquals(persistent(0, 5), changed);
+        assertEquals("0, 5", changed.join());
+        assertEquals(persistent(0, 1, 0, 5), two.concat(changed));
+        assertEquals(persistent(0, 1), two.concat(empty));
+        assertEquals(persistent(5), changed.remove(0));
+        assertEquals(s(0, 1), two.toSeq());
+    }
+
+    @Test
+    public void persistentSeqBehavesLikeAList() {
+        PersistentSeq<Integer> seq = persistent();
+        List<Integer> expected = new LinkedList<Integer>();
+        List<PersistentSeq<Integer>> versions = new LinkedList<PersistentSeq<Integer>>();
+        List<List<Integer>> expectedVersions = new LinkedList<List<Integer>>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5000; i++) {
+            int size = expected.size();
+            switch (random.nextInt(6)) {
+            case 0:
+                seq = seq.append(i);
+                expected.add(i);
+                break;
+            case 1:
+                seq = seq.prepend(i);
+                expected.add(0, i);
+                break;
+            case 2:
+                if (size == 0) break;
+                int index = random.nextInt(size);
+                seq = seq.set(index, -i);
+                expected.set(index, -i);
+                break;
+            case 3:
+                if (size == 0) break;
+                index = random.nextInt(size);
+                seq = seq.remove(index);
+                expected.remove(index);
+                break;
+            case 4:
+                int from = random.nextInt(size + 1);
+                int to = from + random.nextInt(size - from + 1);
+                assertEquals(expected.subList(from, to), seq.subList(from, to).asList());
+                break;
+            default:
+                seq = seq.concat(seq);
+                expected.addAll(new LinkedList<Integer>(expected));
+                if (seq.size() > 2000) {
+                    seq = seq.subList(1000, 2000);
+                    expected = new LinkedList<Integer>(expected.subList(1000, 2000));
+                }
+            }
+
+            if (i % 250 == 0) {
+                versions.add(seq);
+                expectedVersions.add(new LinkedList<Integer>(expected));
+            }
+        }
+
+        assertEquals(expected, seq.asList());
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(expectedVersions.get(i), versions.get(i).asList());
+        }
+        assertEquals(seq, PersistentSeq.from(seq.toSeq()));
+        assertEquals(persistent(3, 1, 2), s(3, 1, 2).toPersistent());
+    }
+
     @Test
     public void combineShouldterateSimultanouslyInTwoLists() {
         Seq<Integer> numbers = s(1, 2, 3);